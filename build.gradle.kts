@@ -3,6 +3,7 @@ plugins {
     kotlin("plugin.spring") version "2.2.21"
     id("org.springframework.boot") version "4.0.1"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.example"
@@ -24,6 +25,7 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-webmvc")
     implementation("org.springframework.boot:spring-boot-starter-data-jdbc")
     implementation("org.jetbrains.kotlin:kotlin-reflect")
+    implementation("org.jetbrains.kotlinx:kotlinx-coroutines-core")
     implementation("tools.jackson.module:jackson-module-kotlin")
     runtimeOnly("com.h2database:h2")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
@@ -38,6 +40,47 @@ kotlin {
     }
 }
 
+val slf4jProvider = "com.example.mdcwrapper.logging.ArrayMdcServiceProvider"
+
+// ScopedValue, used by ScopedMdc, is still a preview API on JDK 24
+tasks.withType<JavaCompile> {
+    options.compilerArgs.add("--enable-preview")
+}
+
+tasks.withType<JavaExec> {
+    jvmArgs("--enable-preview")
+}
+
 tasks.withType<Test> {
     useJUnitPlatform()
+    jvmArgs("--enable-preview")
+    systemProperty("slf4j.provider", slf4jProvider)
+}
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("load")
+    }
+}
+
+val loadTest by tasks.registering(Test::class) {
+    description = "Runs the in-process load tests."
+    group = LifecycleBasePlugin.VERIFICATION_GROUP
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("load")
+    }
+    testLogging.showStandardStreams = true
+    // pass -Dload.concurrency=..., -Dload.mix=... and friends through to LoadProfile
+    systemProperties(System.getProperties().filterKeys { it.toString().startsWith("load.") }.mapKeys { it.key.toString() })
+    shouldRunAfter(tasks.test)
+}
+
+jmh {
+    jmhVersion = "1.37"
+    jvmArgsAppend.addAll("--enable-preview", "-Dslf4j.provider=$slf4jProvider")
+    // report bytes per operation (gc.alloc.rate.norm) next to the latency of every benchmark
+    profilers.add("gc")
+    resultFormat = "JSON"
 }
@@ -0,0 +1,82 @@
+package com.example.mdcwrapper.java;
+
+import com.example.mdcwrapper.logging.ScopedMdc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the ThreadLocal backend ({@code try (var mdc = MdcWrapper.debug(...))}) with the ScopedValue backend
+ * ({@link ScopedMdc}, behind {@code MdcWrapper.run(...)}) when every request runs on its own virtual thread. Each
+ * task opens a controller and a service scope and reads the MDC the way a logging event would.
+ * <p>
+ * The logger sits outside {@code com.example}, so DEBUG is off and no lines are written; the ThreadLocal scopes use
+ * {@link MdcWrapper.MdcMode#ALWAYS} to still exercise the MDC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MdcBackendBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger("benchmark.MdcBackendBenchmark");
+
+    @Param({"1000", "10000", "100000"})
+    public int virtualThreads;
+
+    private final LongAdder sink = new LongAdder();
+
+    @Benchmark
+    public long threadLocalBackend() {
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int task = 0; task < virtualThreads; task++) {
+                final String id = Integer.toString(task);
+                executor.execute(() -> {
+                    try (final MdcWrapper controller = MdcWrapper.debug(logger, "serving GET /api/goats/{id}",
+                            Map.of("id", id), MdcWrapper.MdcMode.ALWAYS)) {
+                        try (final MdcWrapper service = MdcWrapper.debug(logger, "getting a goat",
+                                Map.of("name", "Billy"), MdcWrapper.MdcMode.ALWAYS)) {
+                            Thread.yield();
+                            sink.add(MDC.getCopyOfContextMap().size());
+                        }
+                    }
+                });
+            }
+        }
+        return sink.sum();
+    }
+
+    @Benchmark
+    public long scopedValueBackend() {
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int task = 0; task < virtualThreads; task++) {
+                final String id = Integer.toString(task);
+                executor.execute(() ->
+                        ScopedMdc.run(Map.of("id", id), () ->
+                                ScopedMdc.run(Map.of("name", "Billy"), () -> {
+                                    Thread.yield();
+                                    sink.add(MDC.getCopyOfContextMap().size());
+                                })));
+            }
+        }
+        return sink.sum();
+    }
+}
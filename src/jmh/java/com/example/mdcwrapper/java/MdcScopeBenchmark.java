@@ -0,0 +1,96 @@
+package com.example.mdcwrapper.java;
+
+import ch.qos.logback.classic.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of an {@link MdcScope} method on a Spring AOP proxy against the same scope written by hand, with the
+ * scope's level enabled ({@code DEBUG}) or disabled ({@code WARN}). {@link #plainProxy} is a proxy whose method has
+ * no annotation, the cost of the proxy alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MdcScopeBenchmark {
+
+    private static final List<Goat> GOATS = List.of(new Goat(null, "Billy", "Boer"), new Goat(null, "Nanny", "Alpine"));
+
+    @Param({"DEBUG", "WARN"})
+    public String level;
+
+    private Herd direct;
+    private Herd proxy;
+    private Long id = 42L;
+
+    @Setup
+    public void setup() {
+        final ch.qos.logback.classic.Logger target =
+                (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Herd.class);
+        target.setLevel(Level.toLevel(level));
+        target.setAdditive(false);
+        direct = new Herd();
+        final ProxyFactory factory = new ProxyFactory(new Herd());
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new MdcScopeAdvisor());
+        proxy = (Herd) factory.getProxy();
+    }
+
+    @Benchmark
+    public int handWritten() {
+        return direct.handWritten(GOATS, id);
+    }
+
+    @Benchmark
+    public int annotated() {
+        return proxy.annotated(GOATS, id);
+    }
+
+    @Benchmark
+    public int plainProxy() {
+        return proxy.plain(GOATS, id);
+    }
+
+    /**
+     * The same method three times: with a hand-written scope, with an annotated one, and without a scope.
+     */
+    public static class Herd {
+
+        private final Logger logger = LoggerFactory.getLogger(Herd.class);
+
+        public int handWritten(final List<Goat> goats, final Long id) {
+            try (final MdcWrapper ignored = MdcWrapper.debug(logger, "counting a herd",
+                    Map.of("goats", "" + goats.size(), "id", id.toString()))) {
+                return goats.size();
+            }
+        }
+
+        @MdcScope(action = "counting a herd", level = org.slf4j.event.Level.DEBUG, keys = {"goats=goats.size", "id"})
+        public int annotated(final List<Goat> goats, final Long id) {
+            return goats.size();
+        }
+
+        public int plain(final List<Goat> goats, final Long id) {
+            return goats.size();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.mdcwrapper.java;
+
+import ch.qos.logback.classic.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the Java MdcWrapper against raw MDC calls and against {@code GoatService.addGoatTheOldWay}, with the
+ * scope's level enabled ({@code DEBUG}) or disabled ({@code WARN}).
+ * <p>
+ * The loggers have no appenders, so enabled scopes pay for building their logging events but not for writing
+ * them, and numbers put as numbers are never formatted. The build runs every benchmark with the GC profiler;
+ * {@code gc.alloc.rate.norm} is bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MdcWrapperBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger("benchmark.MdcWrapperBenchmark");
+    private static final Goat GOAT = new Goat(null, "Billy", "Boer");
+
+    @Param({"DEBUG", "WARN"})
+    public String level;
+
+    private GoatService goatService;
+    private long id = 4242;
+    private int goats = 250;
+
+    @Setup
+    public void setup() {
+        for (final String name : new String[]{logger.getName(), GoatService.class.getName()}) {
+            final ch.qos.logback.classic.Logger target = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(name);
+            target.setLevel(Level.toLevel(level));
+            target.setAdditive(false);
+        }
+        goatService = new GoatService((GoatRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{GoatRepository.class},
+                (proxy, method, args) -> method.getName().equals("save") ? ((Goat) args[0]).withId(1L) : null));
+    }
+
+    @Benchmark
+    public void rawMdc() {
+        try {
+            MDC.put("id", "1");
+            logger.debug("Started {}", "getting a goat");
+            logger.debug("Finished {}", "getting a goat");
+        } finally {
+            MDC.remove("id");
+        }
+    }
+
+    @Benchmark
+    public void openClose() {
+        try (final MdcWrapper ignored = MdcWrapper.debug(logger, "getting a goat")) {
+            // scope only
+        }
+    }
+
+    @Benchmark
+    public void entries() {
+        try (final MdcWrapper ignored = MdcWrapper.debug(logger, "getting a goat", Map.of("id", "1", "name", "Billy"))) {
+            // scope only
+        }
+    }
+
+    @Benchmark
+    public void putChain() {
+        try (final MdcWrapper mdc = MdcWrapper.debug(logger, "getting a goat")) {
+            mdc.put("id", "1").put("name", "Billy").put("breed", "Boer");
+        }
+    }
+
+    @Benchmark
+    public void putFormatted() {
+        try (final MdcWrapper mdc = MdcWrapper.debug(logger, "counting goats")) {
+            mdc.put("id", "" + id).put("goats", "" + goats);
+        }
+    }
+
+    @Benchmark
+    public void putNumbers() {
+        try (final MdcWrapper mdc = MdcWrapper.debug(logger, "counting goats")) {
+            mdc.put("id", id).put("goats", goats);
+        }
+    }
+
+    @Benchmark
+    public void nested() {
+        try (final MdcWrapper controller = MdcWrapper.debug(logger, "serving GET /api/goats/{id}", Map.of("id", "1"))) {
+            try (final MdcWrapper service = MdcWrapper.debug(logger, "getting a goat")) {
+                service.put("name", "Billy");
+                try (final MdcWrapper repository = MdcWrapper.debug(logger, "loading a goat")) {
+                    repository.put("breed", "Boer");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Goat addGoatTheOldWay() {
+        return goatService.addGoatTheOldWay(GOAT);
+    }
+
+    @Benchmark
+    public Goat addGoat() {
+        return goatService.addGoat(GOAT);
+    }
+}
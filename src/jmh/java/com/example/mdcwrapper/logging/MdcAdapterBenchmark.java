@@ -0,0 +1,118 @@
+package com.example.mdcwrapper.logging;
+
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Logback's MDC adapter with {@link ArrayMdcAdapter} on the scope churn of one request:
+ * four nested scopes (controller, service, ...) that each put two keys and remove them on close.
+ * The "read" variants also take the MDC the way a logging event does, twice per scope, and the "slot" variant puts
+ * the same keys registered as {@link MdcKey}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MdcAdapterBenchmark {
+
+    private static final int SCOPES = 4;
+    private static final String[] ACTIONS = {"controller", "service", "repository", "mapper"};
+    private static final MdcKey[] SLOTS = {MdcKey.of("slot.controller"), MdcKey.of("slot.service"),
+            MdcKey.of("slot.repository"), MdcKey.of("slot.mapper")};
+    private static final MdcKey ID = MdcKey.of("slot.id");
+
+    private final LogbackMDCAdapter logback = new LogbackMDCAdapter();
+    private final ArrayMdcAdapter array = new ArrayMdcAdapter();
+
+    @Benchmark
+    public void logbackPutRemove() {
+        for (int scope = 0; scope < SCOPES; scope++) {
+            logback.put(ACTIONS[scope], "value");
+            logback.put("id", "42");
+        }
+        for (int scope = SCOPES - 1; scope >= 0; scope--) {
+            logback.remove("id");
+            logback.remove(ACTIONS[scope]);
+        }
+    }
+
+    @Benchmark
+    public void arrayPutRemove() {
+        for (int scope = 0; scope < SCOPES; scope++) {
+            array.put(ACTIONS[scope], "value");
+            array.put("id", "42");
+        }
+        for (int scope = SCOPES - 1; scope >= 0; scope--) {
+            array.remove("id");
+            array.remove(ACTIONS[scope]);
+        }
+    }
+
+    @Benchmark
+    public void arrayMarkRollback() {
+        final int[] marks = new int[SCOPES];
+        for (int scope = 0; scope < SCOPES; scope++) {
+            marks[scope] = array.mark();
+            array.put(ACTIONS[scope], "value");
+            array.put("id", "42");
+        }
+        for (int scope = SCOPES - 1; scope >= 0; scope--) {
+            array.rollback(marks[scope]);
+        }
+    }
+
+    @Benchmark
+    public void arraySlotMarkRollback() {
+        final int[] marks = new int[SCOPES];
+        for (int scope = 0; scope < SCOPES; scope++) {
+            marks[scope] = array.mark();
+            array.put(SLOTS[scope], "value");
+            array.put(ID, "42");
+        }
+        for (int scope = SCOPES - 1; scope >= 0; scope--) {
+            array.rollback(marks[scope]);
+        }
+    }
+
+    @Benchmark
+    public void logbackPutReadRemove(final Blackhole blackhole) {
+        for (int scope = 0; scope < SCOPES; scope++) {
+            logback.put(ACTIONS[scope], "value");
+            blackhole.consume(logback.getPropertyMap());
+            logback.put("id", "42");
+            blackhole.consume(logback.getPropertyMap());
+        }
+        for (int scope = SCOPES - 1; scope >= 0; scope--) {
+            logback.remove("id");
+            logback.remove(ACTIONS[scope]);
+        }
+    }
+
+    @Benchmark
+    public void arrayPutReadRollback(final Blackhole blackhole) {
+        final int[] marks = new int[SCOPES];
+        for (int scope = 0; scope < SCOPES; scope++) {
+            marks[scope] = array.mark();
+            array.put(ACTIONS[scope], "value");
+            blackhole.consume(array.getCopyOfContextMap());
+            array.put("id", "42");
+            blackhole.consume(array.getCopyOfContextMap());
+        }
+        for (int scope = SCOPES - 1; scope >= 0; scope--) {
+            array.rollback(marks[scope]);
+        }
+    }
+}
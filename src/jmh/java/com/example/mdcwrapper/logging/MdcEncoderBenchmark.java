@@ -0,0 +1,89 @@
+package com.example.mdcwrapper.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event encoding cost of the old {@code %replace(%X){'.+', 'MDC:'} %X} pattern against {@link MdcEncoder},
+ * for an event with {@code entries} MDC entries. Run with {@code -prof gc} to compare allocation per event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MdcEncoderBenchmark {
+
+    private static final String BODY = "%d [%thread] %-5level %logger{36} - %msg";
+
+    @Param({"0", "2", "8"})
+    private int entries;
+
+    private final LoggerContext context = new LoggerContext();
+    private final PatternLayoutEncoder pattern = new PatternLayoutEncoder();
+    private final MdcEncoder keyValue = new MdcEncoder();
+    private final MdcEncoder json = new MdcEncoder();
+    private LoggingEvent event;
+
+    @Setup
+    public void setup() {
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        pattern.setContext(context);
+        pattern.setPattern(BODY + " %cyan(%replace(%X){'.+', 'MDC:'} %X) %n");
+        pattern.start();
+        keyValue.setContext(context);
+        keyValue.setPattern(BODY);
+        keyValue.setColor(true);
+        keyValue.start();
+        json.setContext(context);
+        json.setPattern(BODY);
+        json.setFormat(MdcEncoder.Format.JSON);
+        json.start();
+
+        for (int entry = 0; entry < entries; entry++) {
+            MDC.put("key" + entry, "value" + entry);
+        }
+        final Logger logger = context.getLogger("com.example.mdcwrapper.java.GoatService");
+        event = new LoggingEvent(Logger.FQCN, logger, Level.INFO, "Finished {}", null, new Object[]{"adding a new goat"});
+        event.prepareForDeferredProcessing();
+    }
+
+    @TearDown
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Benchmark
+    public byte[] replacePattern() {
+        return pattern.encode(event);
+    }
+
+    @Benchmark
+    public byte[] mdcEncoderKeyValue() {
+        return keyValue.encode(event);
+    }
+
+    @Benchmark
+    public byte[] mdcEncoderJson() {
+        return json.encode(event);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.mdcwrapper.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what MDC propagation adds to submitting a task. The executor runs tasks on the submitting thread so
+ * only capture, wrap and restore are measured, for MDC contexts of different sizes. {@code copyMap} is the usual
+ * hand-rolled propagation that copies the context map per submit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MdcExecutorBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int entries;
+
+    private final Executor raw = Runnable::run;
+    private final Executor wrapped = MdcExecutors.wrap(raw);
+    private final Runnable task = () -> {
+    };
+
+    @Setup
+    public void setup() {
+        for (int entry = 0; entry < entries; entry++) {
+            MDC.put("key" + entry, "value" + entry);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Benchmark
+    public void raw() {
+        raw.execute(task);
+    }
+
+    @Benchmark
+    public void mdcExecutor() {
+        wrapped.execute(task);
+    }
+
+    @Benchmark
+    public void copyMap() {
+        final Map<String, String> copy = new HashMap<>(MDC.getCopyOfContextMap());
+        raw.execute(() -> {
+            final Map<String, String> previous = MDC.getCopyOfContextMap();
+            MDC.setContextMap(copy);
+            try {
+                task.run();
+            } finally {
+                MDC.setContextMap(previous);
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.mdcwrapper.kotlin
+
+import ch.qos.logback.classic.Level
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.slf4j.LoggerFactory
+import java.lang.reflect.Proxy
+import java.util.concurrent.TimeUnit
+
+/**
+ * Cost of the Kotlin MdcWrapper factories, whose entries are a vararg of [Pair], and of the inline
+ * [MdcWrapper.debugScope] builder against [NoteService.createNoteTheOldWay]; the Kotlin counterpart of
+ * MdcWrapperBenchmark. Compare `gc.alloc.rate.norm` of [varargScope] and [inlineScope].
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class MdcWrapperKotlinBenchmark {
+    @Param("DEBUG", "WARN")
+    lateinit var level: String
+
+    private val logger = LoggerFactory.getLogger("benchmark.MdcWrapperKotlinBenchmark")
+    private val note = Note(title = "Groceries", content = "Hay")
+    private var id = 42L
+    private lateinit var noteService: NoteService
+
+    @Setup
+    fun setup() {
+        listOf(logger.name, NoteService::class.java.name).forEach {
+            val target = LoggerFactory.getLogger(it) as ch.qos.logback.classic.Logger
+            target.level = Level.toLevel(level)
+            target.isAdditive = false
+        }
+        val repository =
+            Proxy.newProxyInstance(javaClass.classLoader, arrayOf(NoteRepository::class.java)) { _, method, args ->
+                if (method.name == "save") (args[0] as Note).copy(id = 1) else null
+            } as NoteRepository
+        noteService = NoteService(repository)
+    }
+
+    @Benchmark
+    fun openClose() {
+        MdcWrapper.debug(logger, "getting a note").use { }
+    }
+
+    @Benchmark
+    fun varargEntries() {
+        MdcWrapper.debug(logger, "getting a note", "id" to "1", "title" to "Groceries").use { }
+    }
+
+    @Benchmark
+    fun varargScope() {
+        MdcWrapper.debug(logger, "getting a note", "id" to id.toString(), "title" to "Groceries").use {
+            it.put("cache", "hit")
+        }
+    }
+
+    @Benchmark
+    fun inlineScope() {
+        MdcWrapper.debugScope(logger, "getting a note", {
+            mdc("id", id)
+            mdc("title", "Groceries")
+        }) {
+            mdc("cache", "hit")
+        }
+    }
+
+    @Benchmark
+    fun putChain() {
+        MdcWrapper.debug(logger, "getting a note").use {
+            it.put("id", "1").put("title", "Groceries").put("content", "Hay")
+        }
+    }
+
+    @Benchmark
+    fun nested() {
+        MdcWrapper.debug(logger, "serving GET /api/notes/{id}", "id" to "1").use {
+            MdcWrapper.debug(logger, "getting a note").use { service ->
+                service.put("title", "Groceries")
+                MdcWrapper.debug(logger, "loading a note").use { repository ->
+                    repository.put("content", "Hay")
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    fun createNoteTheOldWay(): Note = noteService.createNoteTheOldWay(note)
+
+    @Benchmark
+    fun createNote(): Note = noteService.createNote(note)
+}
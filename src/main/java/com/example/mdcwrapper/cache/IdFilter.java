@@ -0,0 +1,181 @@
+package com.example.mdcwrapper.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Set of the ids that exist in one table, as a bitmap over the auto-increment id space.
+ * <p>
+ * {@link #mightContain} only answers {@code false} for ids that do not exist, so a lookup of a made-up id can be
+ * answered without a query. The bitmap takes one bit per id up to the highest id, in pages of 8 KiB that are
+ * allocated on first use; ids above 2<sup>32</sup> are not tracked and might always exist. It is loaded from the
+ * database by the first lookup, and every id might exist until that has finished.
+ * <p>
+ * Callers add an id once its insert has returned and remove it once its delete has, so for a moment around each
+ * write the answer for that one id can be stale. A stale "might exist" costs a query and is counted as a false
+ * positive; a stale "does not exist" can only be seen by a client that guessed the id of a row being inserted.
+ */
+public final class IdFilter {
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_WORDS = 1 << PAGE_SHIFT - 6;
+    private static final long MAX_ID = 1L << 32;
+    private static final int NEW = 0;
+    private static final int LOADING = 1;
+    private static final int LOADED = 2;
+
+    private final String name;
+    private final Supplier<? extends Iterable<Long>> existingIds;
+    private final AtomicInteger state = new AtomicInteger(NEW);
+    private final AtomicLong highestId = new AtomicLong();
+    private final Object lock = new Object();
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+    private int allocatedPages;
+
+    private final LongAdder size = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * @param existingIds reads every id in the table; called once, by the first lookup
+     */
+    public IdFilter(final String name, final Supplier<? extends Iterable<Long>> existingIds) {
+        this.name = name;
+        this.existingIds = existingIds;
+    }
+
+    /**
+     * Returns {@code false} if no row has {@code id}, {@code true} if one might.
+     */
+    public boolean mightContain(final long id) {
+        lookups.increment();
+        if (state.get() != LOADED && !load()) {
+            return true;
+        }
+        // the bit is set before the highest id is raised, so reading it first makes the bit visible
+        if (id < 1 || id > highestId.get()) {
+            definiteMisses.increment();
+            return false;
+        }
+        if (id >= MAX_ID) {
+            return true;
+        }
+        final AtomicLongArray page = page(id, false);
+        if (page == null || (page.get(word(id)) & mask(id)) == 0) {
+            definiteMisses.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts a lookup that passed the filter but found no row.
+     */
+    public void falsePositive() {
+        falsePositives.increment();
+    }
+
+    public void add(final long id) {
+        if (id < 1) {
+            return;
+        }
+        if (id < MAX_ID) {
+            final long mask = mask(id);
+            if ((page(id, true).getAndAccumulate(word(id), mask, (bits, bit) -> bits | bit) & mask) == 0) {
+                size.increment();
+            }
+        }
+        highestId.accumulateAndGet(id, Math::max);
+    }
+
+    public void remove(final long id) {
+        if (id < 1 || id >= MAX_ID) {
+            return;
+        }
+        final AtomicLongArray page = page(id, false);
+        final long mask = mask(id);
+        if (page != null && (page.getAndAccumulate(word(id), ~mask, (bits, bit) -> bits & bit) & mask) != 0) {
+            size.decrement();
+        }
+    }
+
+    public Stats stats() {
+        final long bytes;
+        synchronized (lock) {
+            bytes = (long) allocatedPages * PAGE_WORDS * Long.BYTES + (long) pages.length * Long.BYTES;
+        }
+        return new Stats(name, size.sum(), highestId.get(), bytes, lookups.sum(), definiteMisses.sum(),
+                falsePositives.sum());
+    }
+
+    /**
+     * Loads the existing ids unless another thread is already doing so; returns whether the filter is loaded.
+     */
+    private boolean load() {
+        if (!state.compareAndSet(NEW, LOADING)) {
+            return state.get() == LOADED;
+        }
+        try {
+            // ids added or removed meanwhile are kept; a row deleted after it was read becomes a false positive
+            for (final Long id : existingIds.get()) {
+                add(id);
+            }
+            state.set(LOADED);
+            return true;
+        } catch (final RuntimeException e) {
+            state.set(NEW);
+            throw e;
+        }
+    }
+
+    private AtomicLongArray page(final long id, final boolean create) {
+        final int index = (int) (id >>> PAGE_SHIFT);
+        final AtomicLongArray[] current = pages;
+        if (index < current.length && current[index] != null || !create) {
+            return index < current.length ? current[index] : null;
+        }
+        synchronized (lock) {
+            // copied on write, so that readers never see a page array that is still being filled in
+            final AtomicLongArray[] copy = Arrays.copyOf(pages, Math.max(pages.length, index + 1));
+            if (copy[index] == null) {
+                copy[index] = new AtomicLongArray(PAGE_WORDS);
+                allocatedPages++;
+            }
+            pages = copy;
+            return copy[index];
+        }
+    }
+
+    private static int word(final long id) {
+        return (int) (id >>> 6) & PAGE_WORDS - 1;
+    }
+
+    private static long mask(final long id) {
+        return 1L << id;
+    }
+
+    /**
+     * Size, memory footprint and effectiveness of one filter.
+     *
+     * @param ids            ids in the filter
+     * @param memoryBytes    bytes taken by the bitmap pages and their index
+     * @param definiteMisses lookups answered without a query
+     * @param falsePositives lookups that passed the filter but found no row
+     */
+    public record Stats(String name, long ids, long highestId, long memoryBytes, long lookups, long definiteMisses,
+                        long falsePositives) {
+
+        /**
+         * Share of the lookups that passed the filter but found no row.
+         */
+        public double falsePositiveRate() {
+            final long passed = lookups - definiteMisses;
+            return passed == 0 ? 0 : (double) falsePositives / passed;
+        }
+    }
+}
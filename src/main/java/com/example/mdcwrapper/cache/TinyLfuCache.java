@@ -0,0 +1,203 @@
+package com.example.mdcwrapper.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded read-through cache with TinyLFU admission.
+ * <p>
+ * Reads go straight to a {@link ConcurrentHashMap} and take no lock; they only bump the key's counters in an
+ * approximate frequency sketch. Loads, evictions and invalidations are serialized on one lock, which is fine for a
+ * read-mostly workload. When the cache is full, a newly loaded entry is only admitted if it has been asked for
+ * more often than the oldest entry, which it then replaces; otherwise the oldest entry gets a second chance at the
+ * back of the queue. One-off reads therefore cannot flush popular entries.
+ * <p>
+ * {@link #invalidate} bumps a generation that in-flight loads check before they insert, so a value read from the
+ * database before a concurrent update or delete is never cached after it.
+ */
+public final class TinyLfuCache<K, V> {
+
+    private final String name;
+    private final int maximumSize;
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+    private final LinkedHashSet<K> order = new LinkedHashSet<>();
+    private final FrequencySketch sketch;
+    private final Object lock = new Object();
+    private volatile long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public TinyLfuCache(final String name, final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Returns the cached value and counts a hit, or returns {@code null} and counts a miss.
+     */
+    public V getIfPresent(final K key) {
+        sketch.increment(key);
+        final V value = entries.get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Loads the value of a missed key and caches it if admitted; exceptions from {@code loader} propagate.
+     */
+    public V load(final K key, final Function<? super K, ? extends V> loader) {
+        final long loadGeneration = generation;
+        final V value = Objects.requireNonNull(loader.apply(key), "loaded value");
+        synchronized (lock) {
+            if (loadGeneration == generation && !entries.containsKey(key)) {
+                admit(key, value);
+            }
+        }
+        return value;
+    }
+
+    public V get(final K key, final Function<? super K, ? extends V> loader) {
+        final V value = getIfPresent(key);
+        return value != null ? value : load(key, loader);
+    }
+
+    /**
+     * Drops {@code key}; call after the entity was changed or deleted.
+     */
+    public void invalidate(final K key) {
+        synchronized (lock) {
+            generation++;
+            if (entries.remove(key) != null) {
+                order.remove(key);
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(name, entries.size(), maximumSize, hits.sum(), misses.sum(), evictions.sum(),
+                rejections.sum());
+    }
+
+    private void admit(final K key, final V value) {
+        if (entries.size() >= maximumSize) {
+            final Iterator<K> oldest = order.iterator();
+            final K victim = oldest.next();
+            oldest.remove();
+            if (sketch.frequency(key) <= sketch.frequency(victim)) {
+                // the victim survives and moves to the back, so the next candidate is compared with another entry
+                order.add(victim);
+                rejections.increment();
+                return;
+            }
+            entries.remove(victim);
+            evictions.increment();
+        }
+        entries.put(key, value);
+        order.add(key);
+    }
+
+    /**
+     * Hit and miss counters of one cache.
+     */
+    public record Stats(String name, int size, int maximumSize, long hits, long misses, long evictions,
+                        long rejections) {
+
+        public double hitRate() {
+            final long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per key, packed sixteen to a long.
+     * <p>
+     * Updates are plain writes and may be lost under contention, which only makes the estimate slightly lower.
+     * All counters are halved after ten increments per slot so that old popularity fades.
+     */
+    private static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0x97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(final int maximumSize) {
+            final int length = Integer.highestOneBit(Math.max(maximumSize, 16) * 2 - 1);
+            this.table = new long[length];
+            this.sampleSize = 10 * length;
+        }
+
+        int frequency(final Object key) {
+            final int hash = spread(key.hashCode());
+            int frequency = 15;
+            for (int depth = 0; depth < SEEDS.length; depth++) {
+                final long slot = slot(hash, depth);
+                frequency = Math.min(frequency, (int) (table[index(slot)] >>> offset(slot)) & 0xF);
+            }
+            return frequency;
+        }
+
+        void increment(final Object key) {
+            final int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int depth = 0; depth < SEEDS.length; depth++) {
+                final long slot = slot(hash, depth);
+                final int index = index(slot);
+                final int offset = offset(slot);
+                final long word = table[index];
+                if (((word >>> offset) & 0xF) < 15) {
+                    table[index] = word + (1L << offset);
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int index = 0; index < table.length; index++) {
+                table[index] = (table[index] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+
+        private long slot(final int hash, final int depth) {
+            long slot = (hash + SEEDS[depth]) * SEEDS[depth];
+            slot += slot >>> 32;
+            return slot;
+        }
+
+        private int index(final long slot) {
+            return (int) slot & (table.length - 1);
+        }
+
+        private static int offset(final long slot) {
+            return (int) ((slot >>> 40) & 15) << 2;
+        }
+
+        private static int spread(final int hash) {
+            final int mixed = hash * 0x9E3779B9;
+            return mixed ^ (mixed >>> 16);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.mdcwrapper.java;
+
+import com.example.mdcwrapper.cache.IdFilter;
+import com.example.mdcwrapper.cache.TinyLfuCache;
+import com.example.mdcwrapper.kotlin.NoteService;
+import com.example.mdcwrapper.metrics.ActionMetrics;
+import com.example.mdcwrapper.metrics.ActionMetrics.ActionStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller exposing latency percentiles per MdcWrapper action, cache hit rates and id filter statistics.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public final class ActionStatsController {
+
+    private final GoatService goatService;
+    private final NoteService noteService;
+
+    public ActionStatsController(final GoatService goatService, final NoteService noteService) {
+        this.goatService = goatService;
+        this.noteService = noteService;
+    }
+
+    @GetMapping("/actions")
+    public ResponseEntity<List<ActionStats>> getActionStats() {
+        return ResponseEntity.ok(ActionMetrics.global().snapshot());
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<List<TinyLfuCache.Stats>> getCacheStats() {
+        return ResponseEntity.ok(List.of(goatService.cacheStats(), noteService.cacheStats()));
+    }
+
+    @GetMapping("/id-filters")
+    public ResponseEntity<List<IdFilter.Stats>> getIdFilterStats() {
+        return ResponseEntity.ok(List.of(goatService.idFilterStats(), noteService.idFilterStats()));
+    }
+}
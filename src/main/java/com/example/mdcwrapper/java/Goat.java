@@ -1,14 +1,25 @@
 package com.example.mdcwrapper.java;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 
 /**
  * Goat entity representing a goat in the system.
+ * <p>
+ * {@code version} is bumped by every update; send it back with an update to have it rejected when someone else
+ * changed the goat in the meantime, or leave it out to overwrite unconditionally.
  */
-public record Goat(@Id Long id, String name, String breed) {
+public record Goat(@Id Long id, String name, String breed, @Version Long version) {
+
+    public Goat(final Long id, final String name, final String breed) {
+        this(id, name, breed, null);
+    }
 
     public Goat withId(final Long newId) {
-        return new Goat(newId, this.name, this.breed);
+        return new Goat(newId, this.name, this.breed, this.version);
     }
-}
 
+    public Goat withVersion(final Long newVersion) {
+        return new Goat(this.id, this.name, this.breed, newVersion);
+    }
+}
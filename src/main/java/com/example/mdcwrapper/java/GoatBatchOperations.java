@@ -0,0 +1,24 @@
+package com.example.mdcwrapper.java;
+
+import java.util.List;
+
+/**
+ * Bulk writes of goats as JDBC batches, each call in one transaction.
+ */
+public interface GoatBatchOperations {
+
+    /**
+     * Inserts every goat and returns the generated ids, in order.
+     */
+    List<Long> insertBatch(List<Goat> goats);
+
+    /**
+     * Updates every goat by id; throws {@link GoatNotFoundException} and changes nothing if one does not exist.
+     */
+    void updateBatch(List<Goat> goats);
+
+    /**
+     * Deletes every goat by id; throws {@link GoatNotFoundException} and deletes nothing if one does not exist.
+     */
+    void deleteBatch(List<Long> ids);
+}
@@ -0,0 +1,56 @@
+package com.example.mdcwrapper.java;
+
+import com.example.mdcwrapper.jdbc.JdbcBatch;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link GoatBatchOperations} on {@link JdbcBatch}; Spring Data mixes it into {@link GoatRepository}.
+ */
+final class GoatBatchOperationsImpl implements GoatBatchOperations {
+
+    private final JdbcBatch jdbcBatch;
+
+    GoatBatchOperationsImpl(final JdbcBatch jdbcBatch) {
+        this.jdbcBatch = jdbcBatch;
+    }
+
+    @Override
+    public List<Long> insertBatch(final List<Goat> goats) {
+        final long[] ids = jdbcBatch.inTransaction(() -> jdbcBatch.insert(
+                "INSERT INTO GOAT (NAME, BREED) VALUES (?, ?)", goats, (statement, goat) -> {
+                    statement.setString(1, goat.name());
+                    statement.setString(2, goat.breed());
+                }));
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    @Override
+    public void updateBatch(final List<Goat> goats) {
+        if (goats.stream().map(Goat::id).anyMatch(Objects::isNull)) {
+            throw new GoatNotFoundException();
+        }
+        jdbcBatch.inTransaction(() -> requireAll(jdbcBatch.update(
+                "UPDATE GOAT SET NAME = ?, BREED = ?, VERSION = VERSION + 1 WHERE ID = ?", goats, (statement, goat) -> {
+                    statement.setString(1, goat.name());
+                    statement.setString(2, goat.breed());
+                    statement.setLong(3, goat.id());
+                })));
+    }
+
+    @Override
+    public void deleteBatch(final List<Long> ids) {
+        jdbcBatch.inTransaction(() -> requireAll(jdbcBatch.update(
+                "DELETE FROM GOAT WHERE ID = ?", ids, (statement, id) -> statement.setLong(1, id))));
+    }
+
+    private static int[] requireAll(final int[] counts) {
+        // thrown inside the transaction, so the rows already written are rolled back
+        if (Arrays.stream(counts).anyMatch(count -> count == 0)) {
+            throw new GoatNotFoundException();
+        }
+        return counts;
+    }
+}
@@ -1,12 +1,11 @@
 package com.example.mdcwrapper.java;
 
-import org.slf4j.Logger;
+import com.example.mdcwrapper.web.KeysetPage;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * REST controller for managing goats.
@@ -16,7 +15,6 @@ import java.util.Map;
 public final class GoatController {
 
     private final GoatService goatService;
-    private final Logger logger = org.slf4j.LoggerFactory.getLogger(getClass());
 
     public GoatController(final GoatService goatService) {
         this.goatService = goatService;
@@ -24,43 +22,58 @@ public final class GoatController {
 
     @PostMapping
     public ResponseEntity<Goat> createGoat(@RequestBody final Goat goat) {
-        try (final var ignored = MdcWrapper.info(logger, "serving POST /api/goats")) {
-            final Goat createdGoat = goatService.addGoat(goat);
-            // final Goat createdGoat = goatService.addGoatTheOldWay(goat);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdGoat);
-        }
+        final Goat createdGoat = goatService.addGoat(goat);
+        // final Goat createdGoat = goatService.addGoatTheOldWay(goat);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdGoat);
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<List<Long>> createGoats(@RequestBody final List<Goat> goats) {
+        final List<Long> ids = goatService.addGoats(goats);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ids);
     }
 
     @GetMapping
+    public ResponseEntity<KeysetPage<Goat>> getGoats(@RequestParam(required = false) final String cursor,
+                                                     @RequestParam(required = false) final Integer limit) {
+        final KeysetPage<Goat> page = goatService.getGoats(cursor, KeysetPage.limit(limit));
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(params = "all=true")
     public ResponseEntity<List<Goat>> getAllGoats() {
-        try (final var ignored = MdcWrapper.info(logger, "serving GET /api/goats")) {
-            final List<Goat> goats = goatService.getAllGoats();
-            return ResponseEntity.ok(goats);
-        }
+        final List<Goat> goats = goatService.getAllGoats();
+        return ResponseEntity.ok(goats);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Goat> getGoatById(@PathVariable final Long id) {
-        try (final var ignored = MdcWrapper.info(logger, "serving GET /api/goats/{id}", Map.of("id", id.toString()))) {
-            final Goat goat = goatService.getGoatById(id);
-            return ResponseEntity.ok(goat);
-        }
+        final Goat goat = goatService.getGoatById(id);
+        return ResponseEntity.ok(goat);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Goat> updateGoat(@PathVariable final Long id, @RequestBody final Goat goat) {
-        try (final var ignored = MdcWrapper.info(logger, "serving PUT /api/goats/{id}", Map.of("id", id.toString()))) {
-            final Goat updatedGoat = goatService.updateGoat(id, goat);
-            return ResponseEntity.ok(updatedGoat);
-        }
+        final Goat updatedGoat = goatService.updateGoat(id, goat);
+        return ResponseEntity.ok(updatedGoat);
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<Void> updateGoats(@RequestBody final List<Goat> goats) {
+        goatService.updateGoats(goats);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/bulk")
+    public ResponseEntity<Void> deleteGoats(@RequestBody final List<Long> ids) {
+        goatService.deleteGoats(ids);
+        return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteGoat(@PathVariable final Long id) {
-        try (final var ignored = MdcWrapper.info(logger, "serving DELETE /api/goats/{id}", Map.of("id", id.toString()))) {
-            goatService.deleteGoat(id);
-            return ResponseEntity.noContent().build();
-        }
+        goatService.deleteGoat(id);
+        return ResponseEntity.noContent().build();
     }
 }
 
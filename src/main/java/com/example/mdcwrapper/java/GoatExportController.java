@@ -0,0 +1,44 @@
+package com.example.mdcwrapper.java;
+
+import com.example.mdcwrapper.logging.MdcKey;
+import com.example.mdcwrapper.web.NdjsonExport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * REST controller streaming every goat as NDJSON, for exports.
+ */
+@RestController
+@RequestMapping("/api/goats/export")
+public final class GoatExportController {
+
+    private static final String SQL = "SELECT ID, NAME, BREED, VERSION FROM GOAT ORDER BY ID";
+    private static final RowMapper<Goat> GOAT = (row, rowNum) ->
+            new Goat(row.getLong(1), row.getString(2), row.getString(3), row.getLong(4));
+    private static final MdcKey ROWS = MdcKey.of("rows");
+    private static final MdcKey BYTES = MdcKey.of("bytes");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GoatExportController.class);
+
+    private final NdjsonExport export;
+
+    public GoatExportController(final NdjsonExport export) {
+        this.export = export;
+    }
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportGoats() {
+        final StreamingResponseBody body = out -> MdcWrapper.info(LOGGER, "exporting goats").use(mdc -> {
+            final NdjsonExport.Result result = export.write(SQL, GOAT, out);
+            mdc.put(ROWS, result.rows()).put(BYTES, result.bytes());
+            return result;
+        });
+        return ResponseEntity.ok().contentType(NdjsonExport.NDJSON).body(body);
+    }
+}
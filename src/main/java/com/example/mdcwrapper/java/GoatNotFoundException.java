@@ -8,5 +8,15 @@ public final class GoatNotFoundException extends RuntimeException {
     public GoatNotFoundException() {
         super("Goat not found");
     }
-}
 
+    private GoatNotFoundException(final boolean writableStackTrace) {
+        super("Goat not found", null, false, writableStackTrace);
+    }
+
+    /**
+     * Returns an exception without a stack trace, for ids the id filter already knows do not exist.
+     */
+    public static GoatNotFoundException stackless() {
+        return new GoatNotFoundException(false);
+    }
+}
@@ -1,12 +1,47 @@
 package com.example.mdcwrapper.java;
 
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Repository interface for Goat entity.
  */
 @Repository
-public interface GoatRepository extends CrudRepository<Goat, Long> {
+public interface GoatRepository extends CrudRepository<Goat, Long>, GoatBatchOperations {
+
+    /**
+     * Returns up to {@code limit} goats with an id greater than {@code after}, ordered by id.
+     */
+    @Query("SELECT * FROM GOAT WHERE ID > :after ORDER BY ID LIMIT :limit")
+    List<Goat> findPageAfter(long after, int limit);
+
+    @Query("SELECT ID FROM GOAT")
+    List<Long> findAllIds();
+
+    /**
+     * Overwrites the goat in one statement and returns its new version, {@code null} if it does not exist.
+     * Selecting from the {@code FINAL TABLE} of the update is H2's form of {@code UPDATE ... RETURNING}.
+     */
+    @Query("SELECT VERSION FROM FINAL TABLE (UPDATE GOAT SET NAME = :name, BREED = :breed, VERSION = VERSION + 1 "
+            + "WHERE ID = :id)")
+    Long updateById(long id, String name, String breed);
+
+    /**
+     * Like {@link #updateById}, but also changes nothing when the goat is no longer at {@code version}.
+     */
+    @Query("SELECT VERSION FROM FINAL TABLE (UPDATE GOAT SET NAME = :name, BREED = :breed, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND VERSION = :version)")
+    Long updateByIdAndVersion(long id, String name, String breed, long version);
+
+    /**
+     * Deletes the goat in one statement and returns the number of rows deleted, 0 if it does not exist.
+     */
+    @Modifying
+    @Query("DELETE FROM GOAT WHERE ID = :id")
+    int removeById(long id);
 }
 
@@ -1,8 +1,13 @@
 package com.example.mdcwrapper.java;
 
+import com.example.mdcwrapper.cache.IdFilter;
+import com.example.mdcwrapper.cache.TinyLfuCache;
+import com.example.mdcwrapper.logging.MdcKey;
+import com.example.mdcwrapper.web.KeysetPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.slf4j.event.Level;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -10,23 +15,41 @@ import java.util.Map;
 import java.util.stream.StreamSupport;
 
 /**
- * Service for managing goats.
+ * Service for managing goats. Methods whose scope only needs their arguments declare it with {@link MdcScope}; the
+ * others put what they learn along the way, such as the cache outcome, into a scope run by {@link MdcWrapper#use},
+ * so that anything they throw counts as an error.
  */
 @Service
-public final class GoatService {
+public class GoatService {
+
+    private static final MdcKey ID = MdcKey.of("id");
+    private static final MdcKey GOATS = MdcKey.of("goats");
+    private static final MdcKey CACHE = MdcKey.of("cache");
 
     private final GoatRepository goatRepository;
+    private final TinyLfuCache<Long, Goat> goatCache = new TinyLfuCache<>("goats", 10_000);
+    private final IdFilter goatIds;
     private Logger logger = LoggerFactory.getLogger(getClass());
 
     public GoatService(final GoatRepository goatRepository) {
         this.goatRepository = goatRepository;
+        this.goatIds = new IdFilter("goats", goatRepository::findAllIds);
+    }
+
+    public TinyLfuCache.Stats cacheStats() {
+        return goatCache.stats();
+    }
+
+    public IdFilter.Stats idFilterStats() {
+        return goatIds.stats();
     }
 
     public Goat addGoatTheOldWay(final Goat goat) {
         try {
             MDC.put("name", goat.name());
             logger.debug("Started adding a new goat");
-            final Goat saved = goatRepository.save(goat);
+            final Goat saved = goatRepository.save(asNew(goat));
+            goatIds.add(saved.id());
             MDC.put("id", "" + saved.id());
             logger.debug("Finished adding a new goat");
             return saved;
@@ -36,46 +59,102 @@ public final class GoatService {
     }
 
     public Goat addGoat(final Goat goat) {
-        try (final MdcWrapper mdc = MdcWrapper.debug(logger, "adding a new goat",
-                Map.of("name", goat.name()))) {
-            final Goat saved = goatRepository.save(goat);
-            mdc.put("id", "" + saved.id());
+        return MdcWrapper.debug(logger, "adding a new goat", Map.of("name", goat.name())).use(mdc -> {
+            final Goat saved = goatRepository.save(asNew(goat));
+            goatIds.add(saved.id());
+            mdc.put(ID, saved.id());
             return saved;
-        }
+        });
+    }
+
+    /**
+     * Drops any id and version the client sent, which would make Spring Data JDBC update instead of insert.
+     */
+    private static Goat asNew(final Goat goat) {
+        return goat.withId(null).withVersion(null);
+    }
+
+    @MdcScope(action = "adding goats in bulk", level = Level.DEBUG, keys = "goats=goats.size")
+    public List<Long> addGoats(final List<Goat> goats) {
+        final List<Long> ids = goatRepository.insertBatch(goats);
+        ids.forEach(goatIds::add);
+        return ids;
     }
 
     public List<Goat> getAllGoats() {
-        try (final MdcWrapper mdc = MdcWrapper.debug(logger, "fetching all goats")) {
+        return MdcWrapper.debug(logger, "fetching all goats").use(mdc -> {
             final List<Goat> goats = StreamSupport.stream(goatRepository.findAll().spliterator(), false).toList();
-            mdc.put("goats", "" + goats.size());
+            mdc.put(GOATS, goats.size());
             return goats;
-        }
+        });
+    }
+
+    public KeysetPage<Goat> getGoats(final String cursor, final int limit) {
+        return MdcWrapper.debug(logger, "fetching a page of goats").use(mdc -> {
+            final List<Goat> rows = goatRepository.findPageAfter(KeysetPage.after(cursor), limit + 1);
+            final KeysetPage<Goat> page = KeysetPage.of(rows, limit, Goat::id);
+            mdc.put(GOATS, page.items().size());
+            return page;
+        });
     }
 
     public Goat getGoatById(final Long id) {
-        try (final MdcWrapper ignored = MdcWrapper.debug(logger, "getting a goat")) {
-            return goatRepository.findById(id)
-                    .orElseThrow(GoatNotFoundException::new);
-        }
+        return MdcWrapper.debug(logger, "getting a goat", ID, id).use(mdc -> {
+            final Goat cached = goatCache.getIfPresent(id);
+            if (cached != null) {
+                mdc.put(CACHE, "hit");
+                return cached;
+            }
+            if (!goatIds.mightContain(id)) {
+                mdc.put(CACHE, "absent");
+                throw GoatNotFoundException.stackless();
+            }
+            mdc.put(CACHE, "miss");
+            return goatCache.load(id, key -> goatRepository.findById(key).orElseThrow(() -> {
+                goatIds.falsePositive();
+                return new GoatNotFoundException();
+            }));
+        });
     }
 
+    /**
+     * Overwrites the goat in one statement; if {@code goat} carries a version, only while it is still current.
+     */
+    @MdcScope(action = "updating a goat", level = Level.DEBUG, keys = "id")
     public Goat updateGoat(final Long id, final Goat goat) {
-        try (final MdcWrapper ignored = MdcWrapper.debug(logger, "updating a goat")) {
-            return goatRepository.findById(id)
-                    .map(existing -> goatRepository.save(goat.withId(id)))
-                    .orElseThrow(GoatNotFoundException::new);
+        final Long version = goat.version() == null
+                ? goatRepository.updateById(id, goat.name(), goat.breed())
+                : goatRepository.updateByIdAndVersion(id, goat.name(), goat.breed(), goat.version());
+        goatCache.invalidate(id);
+        if (version == null) {
+            // only failed updates pay for a second statement, to tell a stale version from a missing goat
+            throw goat.version() != null && goatRepository.existsById(id)
+                    ? new GoatVersionConflictException()
+                    : new GoatNotFoundException();
         }
+        return goat.withId(id).withVersion(version);
     }
 
+    @MdcScope(action = "updating goats in bulk", level = Level.DEBUG, keys = "goats=goats.size")
+    public void updateGoats(final List<Goat> goats) {
+        goatRepository.updateBatch(goats);
+        goats.forEach(goat -> goatCache.invalidate(goat.id()));
+    }
+
+    @MdcScope(action = "deleting a goat", level = Level.DEBUG, keys = "id")
     public void deleteGoat(final Long id) {
-        try (final MdcWrapper ignored = MdcWrapper.debug(logger, "deleting a goat")) {
-            goatRepository.findById(id)
-                    .map(goat -> {
-                        goatRepository.deleteById(id);
-                        return goat;
-                    })
-                    .orElseThrow(GoatNotFoundException::new);
+        final int deleted = goatRepository.removeById(id);
+        goatIds.remove(id);
+        goatCache.invalidate(id);
+        if (deleted == 0) {
+            throw new GoatNotFoundException();
         }
     }
-}
 
+    @MdcScope(action = "deleting goats in bulk", level = Level.DEBUG, keys = "goats=ids.size")
+    public void deleteGoats(final List<Long> ids) {
+        goatRepository.deleteBatch(ids);
+        ids.forEach(goatIds::remove);
+        ids.forEach(goatCache::invalidate);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.mdcwrapper.java;
+
+/**
+ * Exception thrown when a goat was updated with a version that is no longer current.
+ */
+public final class GoatVersionConflictException extends RuntimeException {
+
+    public GoatVersionConflictException() {
+        super("Goat was changed concurrently");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mdcwrapper.java;
+
+import org.slf4j.event.Level;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated method of a Spring bean inside an {@link MdcWrapper} scope, as if its body were wrapped in
+ * {@code try (var mdc = MdcWrapper.info(logger, action, entries))} with the logger of the bean's class. A method that
+ * throws marks the scope as failed.
+ * <p>
+ * Each of {@link #keys()} puts one argument into the MDC: {@code "id"} puts parameter {@code id} under key
+ * {@code id}, {@code "goats=goats.size"} puts the result of {@code goats.size()} under key {@code goats}. An accessor
+ * may also name a getter by its property, e.g. {@code "title=note.title"}. The bindings are checked when the bean is
+ * created, so a typo fails the startup rather than the call.
+ *
+ * @see MdcScopeAdvisor
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MdcScope {
+
+    /**
+     * The action named by the Started and Finished lines and by the action metrics.
+     */
+    String action();
+
+    /**
+     * {@link Level#INFO} or {@link Level#DEBUG}.
+     */
+    Level level() default Level.INFO;
+
+    /**
+     * Bindings of the form {@code [key=]parameter[.accessor]}.
+     */
+    String[] keys() default {};
+}
@@ -0,0 +1,170 @@
+package com.example.mdcwrapper.java;
+
+import com.example.mdcwrapper.logging.MdcKey;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens the {@link MdcScope} of every annotated method.
+ * <p>
+ * The bindings are compiled while the proxies are created, when Spring asks whether a method matches: each key
+ * becomes a registered {@link MdcKey}, a parameter index and, if it names an accessor, a method handle. A call then
+ * only reads its arguments, and one whose level is disabled goes straight to the method without reading them.
+ * Registered as an infrastructure bean so that Spring Boot's auto-proxy creator applies it without AspectJ on the
+ * classpath.
+ */
+@Component
+@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+public final class MdcScopeAdvisor extends StaticMethodMatcherPointcutAdvisor implements MethodInterceptor {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+    private static final MethodType ACCESSOR = MethodType.methodType(Object.class, Object.class);
+
+    private final Map<Method, Binding> bindings = new ConcurrentHashMap<>();
+
+    public MdcScopeAdvisor() {
+        setAdvice(this);
+    }
+
+    @Override
+    public boolean matches(final Method method, final Class<?> targetClass) {
+        return binding(method, targetClass) != null;
+    }
+
+    @Override
+    public Object invoke(final MethodInvocation invocation) throws Throwable {
+        final Method method = invocation.getMethod();
+        Binding binding = bindings.get(method);
+        if (binding == null) {
+            binding = binding(method, AopUtils.getTargetClass(invocation.getThis()));
+        }
+        if (!binding.logger().isEnabledForLevel(binding.level())) {
+            return invocation.proceed();
+        }
+        final Object[] arguments = invocation.getArguments();
+        try (final MdcWrapper mdc = MdcWrapper.openDeferred(binding.logger(), binding.level(), binding.action(),
+                MdcWrapper.MdcMode.WHEN_LOGGED)) {
+            for (final Entry entry : binding.entries()) {
+                entry.put(mdc, arguments);
+            }
+            mdc.start();
+            try {
+                return invocation.proceed();
+            } catch (final Throwable e) {
+                throw mdc.failed(e);
+            }
+        }
+    }
+
+    private Binding binding(final Method method, final Class<?> targetClass) {
+        final Binding binding = bindings.get(method);
+        if (binding != null) {
+            return binding;
+        }
+        final MdcScope scope = AnnotatedElementUtils.findMergedAnnotation(method, MdcScope.class);
+        if (scope == null) {
+            return null;
+        }
+        return bindings.computeIfAbsent(method, key -> Binding.compile(method, targetClass, scope));
+    }
+
+    private record Binding(Logger logger, Level level, String action, List<Entry> entries) {
+
+        static Binding compile(final Method method, final Class<?> targetClass, final MdcScope scope) {
+            if (scope.level() != Level.INFO && scope.level() != Level.DEBUG) {
+                throw invalid(method, "level " + scope.level() + " is not INFO or DEBUG");
+            }
+            final Class<?> owner = targetClass != null ? targetClass : method.getDeclaringClass();
+            final List<Entry> entries = Arrays.stream(scope.keys()).map(key -> Entry.compile(method, key)).toList();
+            return new Binding(LoggerFactory.getLogger(ClassUtils.getUserClass(owner)), scope.level(), scope.action(),
+                    entries);
+        }
+    }
+
+    /**
+     * One MDC key and where its value comes from: argument {@code index}, passed through {@code accessor} if any.
+     */
+    private record Entry(MdcKey key, int index, MethodHandle accessor) {
+
+        void put(final MdcWrapper mdc, final Object[] arguments) throws Throwable {
+            final Object argument = arguments[index];
+            final Object value = accessor == null || argument == null
+                    ? argument
+                    : (Object) accessor.invokeExact(argument);
+            // a null argument leaves the key out rather than logging the string "null"
+            if (value == null) {
+                return;
+            }
+            // whole numbers, such as ids and sizes, are only formatted if they are logged
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                mdc.put(key, ((Number) value).longValue());
+            } else {
+                mdc.put(key, value.toString());
+            }
+        }
+
+        static Entry compile(final Method method, final String binding) {
+            final int equals = binding.indexOf('=');
+            final String path = binding.substring(equals + 1).trim();
+            final int dot = path.indexOf('.');
+            final String parameter = dot < 0 ? path : path.substring(0, dot);
+            final String key = equals < 0 ? parameter : binding.substring(0, equals).trim();
+
+            final String[] names = PARAMETER_NAMES.getParameterNames(method);
+            if (names == null) {
+                throw invalid(method, "parameter names are not available; compile with -parameters");
+            }
+            final int index = Arrays.asList(names).indexOf(parameter);
+            if (index < 0 || key.isEmpty()) {
+                throw invalid(method, "binding '" + binding + "' does not name a parameter");
+            }
+            if (dot < 0) {
+                return new Entry(MdcKey.of(key), index, null);
+            }
+            final MethodHandle accessor = accessor(method, method.getParameterTypes()[index], path.substring(dot + 1));
+            return new Entry(MdcKey.of(key), index, accessor);
+        }
+
+        private static MethodHandle accessor(final Method method, final Class<?> type, final String name) {
+            final String property = StringUtils.capitalize(name);
+            for (final String candidate : new String[]{name, "get" + property, "is" + property}) {
+                final Method accessor = ClassUtils.getMethodIfAvailable(type, candidate);
+                if (accessor != null && accessor.getReturnType() != void.class) {
+                    try {
+                        return MethodHandles.publicLookup().unreflect(accessor).asType(ACCESSOR);
+                    } catch (final IllegalAccessException e) {
+                        throw invalid(method, "accessor " + accessor + " is not public");
+                    }
+                }
+            }
+            throw invalid(method, type.getSimpleName() + " has no accessor '" + name + "'");
+        }
+    }
+
+    private static IllegalStateException invalid(final Method method, final String problem) {
+        return new IllegalStateException("@MdcScope on " + method.getDeclaringClass().getSimpleName() + "."
+                + method.getName() + ": " + problem);
+    }
+}
@@ -1,45 +1,258 @@
 package com.example.mdcwrapper.java;
 
+import com.example.mdcwrapper.logging.ArrayMdcAdapter;
+import com.example.mdcwrapper.logging.MdcContext;
+import com.example.mdcwrapper.logging.MdcKey;
+import com.example.mdcwrapper.logging.MdcStack;
+import com.example.mdcwrapper.logging.ScopeLogPolicy;
+import com.example.mdcwrapper.logging.ScopedMdc;
+import com.example.mdcwrapper.metrics.ActionMetrics;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
 import org.slf4j.event.Level;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public final class MdcWrapper implements AutoCloseable {
 
+    /**
+     * Decides whether a scope touches the MDC when its Started/Finished lines are not logged.
+     */
+    public enum MdcMode {
+        /** Skip the MDC entirely when the scope's level is disabled. */
+        WHEN_LOGGED,
+        /** Put the MDC entries even when the Started/Finished lines are suppressed. */
+        ALWAYS
+    }
+
+    /**
+     * Body of a scope run by {@link #use}, which gets the scope to put what it learns along the way.
+     */
+    @FunctionalInterface
+    public interface Body<T, E extends Throwable> {
+        T apply(MdcWrapper mdc) throws E;
+    }
+
+    private static final MdcWrapper DISABLED = new MdcWrapper();
+    private static final MdcKey ELAPSED = MdcKey.of("elapsedMicros");
+    private static final MdcKey ERROR = MdcKey.of("error");
+
     private final Logger logger;
     private final Level level;
-    private final String action;
-    private final List<String> keys;
+    private String action;
+    private final boolean enabled;
+    private final boolean logging;
+    private final ArrayMdcAdapter adapter;
+    private final int mark;
+    private final MdcStack stack;
+    private long startNanos;
+    private boolean failed;
+    private boolean handedOff;
+
+    private MdcWrapper() {
+        this.logger = null;
+        this.level = null;
+        this.action = null;
+        this.enabled = false;
+        this.logging = false;
+        this.adapter = null;
+        this.mark = 0;
+        this.stack = null;
+    }
 
-    private MdcWrapper(final Logger logger, final Level level, final String action, Map<String, String> entries) {
+    private MdcWrapper(final Logger logger, final Level level, final String action, final boolean enabled,
+                       final boolean logging) {
         this.logger = logger;
         this.level = level;
         this.action = action;
-        this.keys = new ArrayList<>();
-        entries.forEach((key, value) -> {
-            MDC.put(key, value);
-            keys.add(key);
-        });
+        this.enabled = enabled;
+        this.logging = logging;
+        this.adapter = ArrayMdcAdapter.installed();
+        this.stack = adapter != null ? null : MdcStack.current();
+        this.mark = adapter != null ? adapter.mark() : stack.mark();
+    }
+
+    /**
+     * Logs the Started line and starts the clock, once the scope's entries are in the MDC.
+     */
+    void start() {
+        if (this == DISABLED) {
+            return;
+        }
         log("Started {}");
+        startNanos = ActionMetrics.TIMING_ENABLED ? System.nanoTime() : 0L;
     }
 
     public MdcWrapper put(final String key, final String value) {
-        MDC.put(key, value);
-        keys.add(key);
+        if (this == DISABLED) {
+            return this;
+        }
+        if (adapter != null || handedOff) {
+            MDC.put(key, value);
+        } else {
+            stack.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Puts {@code value} as a number; with {@link ArrayMdcAdapter} installed it is only formatted if a logging event
+     * renders it, otherwise it is formatted here.
+     */
+    public MdcWrapper put(final String key, final long value) {
+        if (this == DISABLED) {
+            return this;
+        }
+        if (adapter != null) {
+            adapter.putLong(key, value);
+            return this;
+        }
+        return put(key, Long.toString(value));
+    }
+
+    public MdcWrapper put(final String key, final int value) {
+        return put(key, (long) value);
+    }
+
+    /**
+     * Puts {@code value}, which with {@link ArrayMdcAdapter} installed is only called if a logging event renders the
+     * entry, possibly on an appender thread; otherwise it is called here.
+     */
+    public MdcWrapper put(final String key, final Supplier<String> value) {
+        if (this == DISABLED) {
+            return this;
+        }
+        if (adapter != null) {
+            adapter.putLazy(key, value);
+            return this;
+        }
+        return put(key, value.get());
+    }
+
+    /**
+     * Puts {@code value} under a registered key; with {@link ArrayMdcAdapter} installed it goes straight to the key's
+     * slot, with no hashing or comparing of names.
+     */
+    public MdcWrapper put(final MdcKey key, final String value) {
+        if (this == DISABLED) {
+            return this;
+        }
+        if (adapter != null) {
+            adapter.put(key, value);
+            return this;
+        }
+        return put(key.name(), value);
+    }
+
+    public MdcWrapper put(final MdcKey key, final long value) {
+        if (this == DISABLED) {
+            return this;
+        }
+        if (adapter != null) {
+            adapter.putLong(key, value);
+            return this;
+        }
+        return put(key.name(), Long.toString(value));
+    }
+
+    public MdcWrapper put(final MdcKey key, final int value) {
+        return put(key, (long) value);
+    }
+
+    /**
+     * Renames the scope's action before it is closed, for scopes that only learn what they did along the way; the
+     * Finished line and the action metrics use the new name.
+     */
+    public MdcWrapper action(final String action) {
+        if (this != DISABLED) {
+            this.action = action;
+        }
         return this;
     }
 
+    /**
+     * Runs {@code body} and closes the scope, marking it failed if {@code body} throws anything. Unlike
+     * try-with-resources, which only sees explicit {@link #failed} calls, this also counts unexpected failures such
+     * as a {@code DataAccessException}.
+     */
+    public <T, E extends Throwable> T use(final Body<T, E> body) throws E {
+        try {
+            return body.apply(this);
+        } catch (final Throwable e) {
+            failed(e);
+            throw e;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Marks the scope as failed so it counts as an error, and returns {@code error} for throwing, e.g.
+     * {@code orElseThrow(() -> mdc.failed(new GoatNotFoundException()))}.
+     */
+    public <T extends Throwable> T failed(final T error) {
+        if (this == DISABLED) {
+            return error;
+        }
+        failed = true;
+        if (enabled) {
+            put(ERROR, error.getClass().getSimpleName());
+        }
+        return error;
+    }
+
+    /**
+     * Takes the scope off the current thread without closing it, for work that completes on another thread, such as
+     * an async request. The thread's MDC is rolled back as on close while the clock keeps running; the returned
+     * context holds the scope's entries, and the other thread puts and closes inside {@link MdcContext#run}.
+     */
+    public MdcContext handOff() {
+        final MdcContext context = MdcContext.capture();
+        if (this != DISABLED && !handedOff) {
+            handedOff = true;
+            if (adapter != null) {
+                adapter.rollback(mark);
+            } else {
+                stack.rollback(mark);
+            }
+        }
+        return context;
+    }
+
     @Override
     public void close() {
-        log("Finished {}");
-        keys.forEach(MDC::remove);
+        if (this == DISABLED) {
+            return;
+        }
+        if (ActionMetrics.TIMING_ENABLED) {
+            final long elapsed = System.nanoTime() - startNanos;
+            ActionMetrics.global().record(action, elapsed, failed);
+            if (logging || failed && enabled) {
+                put(ELAPSED, elapsed / 1_000);
+            }
+        }
+        if (logging || failed && enabled) {
+            log(logger, level, "Finished {}", action);
+        }
+        if (handedOff) {
+            // the entries went with the context the closing thread runs in
+            return;
+        }
+        if (adapter != null) {
+            adapter.rollback(mark);
+        } else {
+            stack.rollback(mark);
+        }
     }
 
     private void log(final String format) {
+        if (logging) {
+            log(logger, level, format, action);
+        }
+    }
+
+    private static void log(final Logger logger, final Level level, final String format, final String action) {
         if (level == Level.INFO) {
             logger.info(format, action);
         } else {
@@ -47,12 +260,67 @@ public final class MdcWrapper implements AutoCloseable {
         }
     }
 
+    private static MdcWrapper open(final Logger logger, final Level level, final String action,
+                                   final Map<String, String> entries, final MdcMode mode) {
+        final MdcWrapper wrapper = openDeferred(logger, level, action, mode);
+        if (wrapper != DISABLED) {
+            entries.forEach(wrapper::put);
+        }
+        wrapper.start();
+        return wrapper;
+    }
+
+    private static MdcWrapper open(final Logger logger, final Level level, final String action, final String key,
+                                   final long value) {
+        final MdcWrapper wrapper = openDeferred(logger, level, action, MdcMode.WHEN_LOGGED);
+        wrapper.put(key, value);
+        wrapper.start();
+        return wrapper;
+    }
+
+    private static MdcWrapper open(final Logger logger, final Level level, final String action, final MdcKey key,
+                                   final long value) {
+        final MdcWrapper wrapper = openDeferred(logger, level, action, MdcMode.WHEN_LOGGED);
+        wrapper.put(key, value);
+        wrapper.start();
+        return wrapper;
+    }
+
+    /**
+     * Opens a scope without logging its Started line, so that the caller can put the entries first and then call
+     * {@link #start()}; used by {@link MdcScopeAdvisor}, which has no map of entries to pass.
+     */
+    static MdcWrapper openDeferred(final Logger logger, final Level level, final String action, final MdcMode mode) {
+        final boolean enabled = logger.isEnabledForLevel(level);
+        if (!enabled && mode == MdcMode.WHEN_LOGGED) {
+            return DISABLED;
+        }
+        final boolean logging = enabled && ScopeLogPolicy.admit(logger.getName(), action);
+        return new MdcWrapper(logger, level, action, enabled, logging);
+    }
+
     public static MdcWrapper info(final Logger logger, final String action) {
         return info(logger, action, Map.of());
     }
 
     public static MdcWrapper info(final Logger logger, final String action, Map<String, String> entries) {
-        return new MdcWrapper(logger, Level.INFO, action, entries);
+        return info(logger, action, entries, MdcMode.WHEN_LOGGED);
+    }
+
+    public static MdcWrapper info(final Logger logger, final String action, Map<String, String> entries,
+                                  final MdcMode mode) {
+        return open(logger, Level.INFO, action, entries, mode);
+    }
+
+    /**
+     * Opens a scope with a single numeric entry, formatted only if it is logged.
+     */
+    public static MdcWrapper info(final Logger logger, final String action, final String key, final long value) {
+        return open(logger, Level.INFO, action, key, value);
+    }
+
+    public static MdcWrapper info(final Logger logger, final String action, final MdcKey key, final long value) {
+        return open(logger, Level.INFO, action, key, value);
     }
 
     public static MdcWrapper debug(final Logger logger, final String action) {
@@ -60,7 +328,85 @@ public final class MdcWrapper implements AutoCloseable {
     }
 
     public static MdcWrapper debug(final Logger logger, final String action, Map<String, String> entries) {
-        return new MdcWrapper(logger, Level.DEBUG, action, entries);
+        return debug(logger, action, entries, MdcMode.WHEN_LOGGED);
+    }
+
+    public static MdcWrapper debug(final Logger logger, final String action, Map<String, String> entries,
+                                   final MdcMode mode) {
+        return open(logger, Level.DEBUG, action, entries, mode);
     }
-}
 
+    /**
+     * Opens a scope with a single numeric entry, formatted only if it is logged.
+     */
+    public static MdcWrapper debug(final Logger logger, final String action, final String key, final long value) {
+        return open(logger, Level.DEBUG, action, key, value);
+    }
+
+    public static MdcWrapper debug(final Logger logger, final String action, final MdcKey key, final long value) {
+        return open(logger, Level.DEBUG, action, key, value);
+    }
+
+    /**
+     * Runs {@code body} with {@code entries} bound through {@link ScopedMdc} rather than the thread-local MDC.
+     * Nothing is left behind on the thread afterwards, which suits virtual threads.
+     */
+    public static void run(final Logger logger, final String action, final Map<String, String> entries,
+                           final Runnable body) {
+        run(logger, Level.INFO, action, entries, body);
+    }
+
+    public static void run(final Logger logger, final Level level, final String action,
+                           final Map<String, String> entries, final Runnable body) {
+        if (!logger.isEnabledForLevel(level)) {
+            body.run();
+            return;
+        }
+        final boolean logging = ScopeLogPolicy.admit(logger.getName(), action);
+        ScopedMdc.run(entries, () -> {
+            if (logging) {
+                log(logger, level, "Started {}", action);
+            }
+            final long start = ActionMetrics.TIMING_ENABLED ? System.nanoTime() : 0L;
+            boolean failed = true;
+            try {
+                body.run();
+                failed = false;
+            } finally {
+                if (ActionMetrics.TIMING_ENABLED) {
+                    ActionMetrics.global().record(action, System.nanoTime() - start, failed);
+                }
+                if (logging || failed) {
+                    log(logger, level, "Finished {}", action);
+                }
+            }
+        });
+    }
+
+    public static <T> T call(final Logger logger, final Level level, final String action,
+                             final Map<String, String> entries, final Supplier<? extends T> body) {
+        if (!logger.isEnabledForLevel(level)) {
+            return body.get();
+        }
+        final boolean logging = ScopeLogPolicy.admit(logger.getName(), action);
+        return ScopedMdc.call(entries, () -> {
+            if (logging) {
+                log(logger, level, "Started {}", action);
+            }
+            final long start = ActionMetrics.TIMING_ENABLED ? System.nanoTime() : 0L;
+            boolean failed = true;
+            try {
+                final T result = body.get();
+                failed = false;
+                return result;
+            } finally {
+                if (ActionMetrics.TIMING_ENABLED) {
+                    ActionMetrics.global().record(action, System.nanoTime() - start, failed);
+                }
+                if (logging || failed) {
+                    log(logger, level, "Finished {}", action);
+                }
+            }
+        });
+    }
+}
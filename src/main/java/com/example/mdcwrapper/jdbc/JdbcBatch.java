@@ -0,0 +1,93 @@
+package com.example.mdcwrapper.jdbc;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs one statement for many rows as JDBC batches of {@code mdcwrapper.jdbc.batch-size} rows.
+ * <p>
+ * Each batch is one round trip to the database instead of one per row. Callers wrap a whole bulk request in
+ * {@link #inTransaction} so that it is applied completely or not at all.
+ */
+@Component
+public final class JdbcBatch {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public JdbcBatch(final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate,
+                     @Value("${mdcwrapper.jdbc.batch-size:500}") final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs {@code work} in one transaction, rolled back if it throws.
+     */
+    public <T> T inTransaction(final Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    /**
+     * Inserts every row with {@code sql} and returns the generated {@code ID} of each, in order.
+     */
+    public <T> long[] insert(final String sql, final List<T> rows, final ParameterizedPreparedStatementSetter<T> setter) {
+        final long[] ids = new long[rows.size()];
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            final List<T> batch = rows.subList(start, Math.min(start + batchSize, rows.size()));
+            final GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(final PreparedStatement statement, final int index)
+                                throws SQLException {
+                            setter.setValues(statement, batch.get(index));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    },
+                    keys);
+            final List<Map<String, Object>> generated = keys.getKeyList();
+            for (int index = 0; index < generated.size(); index++) {
+                ids[start + index] = ((Number) generated.get(index).values().iterator().next()).longValue();
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Runs {@code sql} for every row and returns the number of rows each one changed, in order.
+     */
+    public <T> int[] update(final String sql, final List<T> rows, final ParameterizedPreparedStatementSetter<T> setter) {
+        final int[] counts = new int[rows.size()];
+        int index = 0;
+        for (final int[] batch : jdbcTemplate.batchUpdate(sql, rows, batchSize, setter)) {
+            for (final int count : batch) {
+                // drivers may report a successful statement without a row count
+                counts[index++] = count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return counts;
+    }
+}
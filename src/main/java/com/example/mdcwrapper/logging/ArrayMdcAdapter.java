@@ -0,0 +1,939 @@
+package com.example.mdcwrapper.logging;
+
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.helpers.ThreadLocalMapOfStacks;
+import org.slf4j.spi.MDCAdapter;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * MDC adapter that keeps each thread's context in small open-addressing arrays.
+ * <p>
+ * Writes update the arrays in place instead of copying a map. A logging event that reads the MDC gets an
+ * immutable {@link Snapshot} sharing those arrays; only the first write after a snapshot copies them.
+ * {@link #mark()} and {@link #rollback(int)} undo every change made since the mark, so a closing scope
+ * restores the values it shadowed. Like {@link MdcStack}, the undo log holds at most {@value #MAX_UNDO_ENTRIES}
+ * changes and drops the oldest with a warning beyond that, which takes scopes that are never closed.
+ * <p>
+ * Entries bound through {@link ScopedMdc} are visible as well; thread-local entries take precedence over them.
+ * <p>
+ * Besides strings, the arrays hold numbers put with {@link #putLong} and suppliers put with {@link #putLazy}. Both
+ * are only turned into strings when the MDC is read: {@link MdcEncoder} writes numbers straight into its byte buffer
+ * through {@link Snapshot#visit}, so a number that is never logged is never formatted, and a supplier is called
+ * once, the first time its entry is read.
+ * <p>
+ * Keys registered as {@link MdcKey} live in a separate array indexed by their slot rather than in the hash table;
+ * an entry put under a name before the name was registered moves to its slot the next time its context is used.
+ * Snapshots present both as one map, so logback's {@code %X} and every other reader see slot entries like any other.
+ */
+public final class ArrayMdcAdapter implements MDCAdapter {
+
+    static final int MAX_UNDO_ENTRIES = 1024;
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int RETAINED_UNDO_CAPACITY = 256;
+    /** Value of an entry whose number is in the numbers array. */
+    private static final Object NUMBER = new Object();
+    private static final Object[] NO_VALUES = new Object[0];
+    private static final long[] NO_NUMBERS = new long[0];
+    static final boolean SCOPED_FRAMES = scopedFramesAvailable();
+
+    private final ThreadLocal<Context> contexts = new ThreadLocal<>();
+    private final ThreadLocalMapOfStacks deques = new ThreadLocalMapOfStacks();
+
+    /**
+     * Returns the adapter SLF4J is bound to, or {@code null} when another MDC adapter is in use.
+     */
+    public static ArrayMdcAdapter installed() {
+        return Installed.ADAPTER;
+    }
+
+    @Override
+    public void put(final String key, final String value) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        context().put(key, value, 0L);
+    }
+
+    /**
+     * Puts {@code value} as a number, formatted only when the MDC is read.
+     */
+    public void putLong(final String key, final long value) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        context().put(key, NUMBER, value);
+    }
+
+    /**
+     * Puts {@code value}, which is called the first time the entry is read, e.g. by the appender rendering an event,
+     * and whose result is kept for every later read. It may run on another thread, so it must not depend on
+     * thread-local state; a {@code null} result leaves the key absent.
+     */
+    public void putLazy(final String key, final Supplier<String> value) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        context().put(key, new Lazy(value), 0L);
+    }
+
+    public void put(final MdcKey key, final String value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        context().putSlot(key, value, 0L);
+    }
+
+    public void putLong(final MdcKey key, final long value) {
+        context().putSlot(key, NUMBER, value);
+    }
+
+    public void putLazy(final MdcKey key, final Supplier<String> value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        context().putSlot(key, new Lazy(value), 0L);
+    }
+
+    public String get(final MdcKey key) {
+        final Context context = contexts.get();
+        final String value = context == null ? null : context.getSlot(key);
+        if (value == null && SCOPED_FRAMES && ScopedMdc.isBound()) {
+            return ScopedMdc.get(key.name());
+        }
+        return value;
+    }
+
+    public void remove(final MdcKey key) {
+        final Context context = contexts.get();
+        if (context != null) {
+            context.removeSlot(key);
+        }
+    }
+
+    @Override
+    public String get(final String key) {
+        final Context context = contexts.get();
+        final String value = context == null || key == null ? null : context.get(key);
+        if (value == null && SCOPED_FRAMES && ScopedMdc.isBound()) {
+            return ScopedMdc.get(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void remove(final String key) {
+        final Context context = contexts.get();
+        if (context != null && key != null) {
+            context.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        final Context context = contexts.get();
+        if (context == null) {
+            return;
+        }
+        if (context.marks == 0) {
+            contexts.remove();
+        } else {
+            context.clear();
+        }
+    }
+
+    /**
+     * Returns an immutable view of the current context, or {@code null} when the thread has none.
+     */
+    @Override
+    public Map<String, String> getCopyOfContextMap() {
+        final Context context = contexts.get();
+        if (SCOPED_FRAMES && ScopedMdc.isBound()) {
+            final Map<String, String> merged = new HashMap<>();
+            ScopedMdc.copyInto(merged);
+            if (context != null) {
+                merged.putAll(context.snapshot());
+            }
+            return Collections.unmodifiableMap(merged);
+        }
+        return context == null ? null : context.snapshot();
+    }
+
+    /**
+     * Replaces the current context; {@code null}, as returned by {@link #getCopyOfContextMap()} for a thread with no
+     * context, clears it. While a mark is open the replacement is recorded, so rolling back restores the old entries.
+     */
+    @Override
+    public void setContextMap(final Map<String, String> contextMap) {
+        if (contextMap == null) {
+            clear();
+            return;
+        }
+        final Context context = context();
+        if (context.marks == 0 && contextMap instanceof Snapshot snapshot) {
+            context.clear();
+            context.adopt(snapshot);
+            return;
+        }
+        context.removeAll();
+        contextMap.forEach((key, value) -> context.put(key, value, 0L));
+    }
+
+    @Override
+    public void pushByKey(final String key, final String value) {
+        deques.pushByKey(key, value);
+    }
+
+    @Override
+    public String popByKey(final String key) {
+        return deques.popByKey(key);
+    }
+
+    @Override
+    public Deque<String> getCopyOfDequeByKey(final String key) {
+        return deques.getCopyOfDequeByKey(key);
+    }
+
+    @Override
+    public void clearDequeByKey(final String key) {
+        deques.clearDequeByKey(key);
+    }
+
+    /**
+     * Starts recording changes to the current thread's context and returns a mark to roll back to.
+     */
+    public int mark() {
+        final Context context = context();
+        context.marks++;
+        if (context.droppedUndo) {
+            // warned here rather than while recording, where logging would snapshot a context half way through
+            context.droppedUndo = false;
+            LoggerFactory.getLogger(ArrayMdcAdapter.class).warn(
+                    "MDC undo log is full at {} changes, dropping the oldest; a scope is probably never closed",
+                    MAX_UNDO_ENTRIES);
+        }
+        return context.undoTop;
+    }
+
+    /**
+     * Undoes every change made since {@code mark}, restoring values that were overwritten or removed.
+     */
+    public void rollback(final int mark) {
+        final Context context = contexts.get();
+        if (context == null) {
+            return;
+        }
+        context.rollback(mark);
+        if (context.marks == 0 && context.size + context.slotSize == 0) {
+            contexts.remove();
+        }
+    }
+
+    /**
+     * Returns the current thread's context in O(1): the snapshot shares the arrays until the next write.
+     */
+    Snapshot capture() {
+        final Context context = contexts.get();
+        return context == null ? null : context.snapshot();
+    }
+
+    /**
+     * Returns a snapshot holding {@code entries}, to be attached to a thread later.
+     */
+    static Snapshot snapshotOf(final Map<String, String> entries) {
+        final Context context = new Context();
+        entries.forEach((key, value) -> context.put(key, value, 0L));
+        return context.snapshot();
+    }
+
+    /**
+     * Makes {@code snapshot} the current thread's context and returns the replaced context for {@link #detach}.
+     */
+    Object attach(final Snapshot snapshot) {
+        final Context previous = contexts.get();
+        if (snapshot == null) {
+            contexts.remove();
+        } else {
+            contexts.set(new Context(snapshot));
+        }
+        return previous;
+    }
+
+    void detach(final Object previous) {
+        if (previous == null) {
+            contexts.remove();
+        } else {
+            contexts.set((Context) previous);
+        }
+    }
+
+    /**
+     * Drops the current thread's context including open marks, e.g. when a scope was never closed.
+     */
+    public void reset() {
+        contexts.remove();
+    }
+
+    private Context context() {
+        Context context = contexts.get();
+        if (context == null) {
+            context = new Context();
+            contexts.set(context);
+        }
+        return context;
+    }
+
+    private static boolean scopedFramesAvailable() {
+        try {
+            // ScopedValue is a preview API on JDK 24; without --enable-preview the class cannot be loaded
+            Class.forName("com.example.mdcwrapper.logging.ScopedMdc");
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static int home(final String key, final int mask) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static String format(final Object value, final long number) {
+        if (value == NUMBER) {
+            return Long.toString(number);
+        }
+        if (value instanceof Lazy lazy) {
+            return lazy.get();
+        }
+        return (String) value;
+    }
+
+    private static int indexOf(final String[] keys, final String key) {
+        final int mask = keys.length - 1;
+        int index = home(key, mask);
+        while (true) {
+            final String candidate = keys[index];
+            if (candidate == null) {
+                return -1 - index;
+            }
+            if (candidate.equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private static final class Context {
+
+        private String[] keys;
+        private Object[] values;
+        private long[] numbers;
+        private int size;
+        private Object[] slotValues = NO_VALUES;
+        private long[] slotNumbers = NO_NUMBERS;
+        private int slotSize;
+        /** Registered keys as of the last {@link #sync()}. */
+        private int registered;
+        private boolean shared;
+        private Snapshot snapshot;
+
+        // a ring of changes holding Strings for hash table entries and MdcKeys for slots; positions count the
+        // changes recorded, and those below undoBottom were dropped
+        private Object[] undoKeys = NO_VALUES;
+        private Object[] undoValues = NO_VALUES;
+        private long[] undoNumbers = NO_NUMBERS;
+        private int undoBottom;
+        private int undoTop;
+        private int marks;
+        private boolean dropping;
+        private boolean droppedUndo;
+
+        Context() {
+            this.keys = new String[INITIAL_CAPACITY];
+            this.values = new Object[INITIAL_CAPACITY];
+            this.numbers = new long[INITIAL_CAPACITY];
+        }
+
+        Context(final Snapshot source) {
+            adopt(source);
+        }
+
+        /**
+         * Looks in the hash table first, which never holds a registered name after {@link #sync()}, so that names
+         * that are not registered are only hashed once.
+         */
+        String get(final String key) {
+            sync();
+            if (size > 0) {
+                final int index = indexOf(keys, key);
+                if (index >= 0) {
+                    return format(values[index], numbers[index]);
+                }
+            }
+            final MdcKey slotted = slotSize == 0 ? null : MdcKey.find(key);
+            return slotted == null ? null : slotValue(slotted);
+        }
+
+        String getSlot(final MdcKey key) {
+            sync();
+            return slotValue(key);
+        }
+
+        private String slotValue(final MdcKey key) {
+            final int slot = key.slot();
+            return slot < slotValues.length && slotValues[slot] != null
+                    ? format(slotValues[slot], slotNumbers[slot])
+                    : null;
+        }
+
+        /**
+         * Puts a string, a supplier, or {@link #NUMBER} with its {@code number}.
+         */
+        void put(final String key, final Object value, final long number) {
+            sync();
+            final int index = indexOf(keys, key);
+            final MdcKey slotted = index < 0 ? MdcKey.find(key) : null;
+            if (slotted != null) {
+                putSlot(slotted, value, number);
+            } else {
+                putHashed(key, value, number, index);
+            }
+        }
+
+        void putSlot(final MdcKey key, final Object value, final long number) {
+            sync();
+            writable();
+            final int slot = key.slot();
+            if (slot >= slotValues.length) {
+                final int capacity = Math.max(MdcKey.count(), slot + 1);
+                slotValues = Arrays.copyOf(slotValues, capacity);
+                slotNumbers = Arrays.copyOf(slotNumbers, capacity);
+            }
+            record(key, slotValues[slot], slotNumbers[slot]);
+            if (slotValues[slot] == null) {
+                slotSize++;
+            }
+            slotValues[slot] = value;
+            slotNumbers[slot] = number;
+        }
+
+        private void putHashed(final String key, final Object value, final long number, int index) {
+            writable();
+            if (index >= 0) {
+                record(key, values[index], numbers[index]);
+                values[index] = value;
+                numbers[index] = number;
+                return;
+            }
+            record(key, null, 0L);
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                index = indexOf(keys, key);
+            }
+            index = -1 - index;
+            keys[index] = key;
+            values[index] = value;
+            numbers[index] = number;
+            size++;
+        }
+
+        void remove(final String key) {
+            sync();
+            final int index = size == 0 ? -1 : indexOf(keys, key);
+            if (index >= 0) {
+                writable();
+                record(key, values[index], numbers[index]);
+                delete(index);
+                return;
+            }
+            final MdcKey slotted = slotSize == 0 ? null : MdcKey.find(key);
+            if (slotted != null) {
+                removeSlot(slotted);
+            }
+        }
+
+        void removeSlot(final MdcKey key) {
+            sync();
+            final int slot = key.slot();
+            if (slot >= slotValues.length || slotValues[slot] == null) {
+                return;
+            }
+            writable();
+            record(key, slotValues[slot], slotNumbers[slot]);
+            slotValues[slot] = null;
+            slotSize--;
+        }
+
+        /**
+         * Moves entries put under a name before it was registered into the name's slot, once per registration, so
+         * that no name is in both the hash table and a slot.
+         */
+        private void sync() {
+            final int count = MdcKey.count();
+            if (registered == count) {
+                return;
+            }
+            registered = count;
+            if (size == 0) {
+                return;
+            }
+            final List<MdcKey> moved = new ArrayList<>();
+            for (final String key : keys) {
+                final MdcKey slotted = key == null ? null : MdcKey.find(key);
+                if (slotted != null) {
+                    moved.add(slotted);
+                }
+            }
+            if (moved.isEmpty()) {
+                return;
+            }
+            writable();
+            for (final MdcKey key : moved) {
+                final int index = indexOf(keys, key.name());
+                final int slot = key.slot();
+                if (slot >= slotValues.length) {
+                    slotValues = Arrays.copyOf(slotValues, Math.max(count, slot + 1));
+                    slotNumbers = Arrays.copyOf(slotNumbers, slotValues.length);
+                }
+                slotValues[slot] = values[index];
+                slotNumbers[slot] = numbers[index];
+                slotSize++;
+                delete(index);
+            }
+        }
+
+        /**
+         * Like {@link #clear()}, but records every entry it removes while a mark is open.
+         */
+        void removeAll() {
+            sync();
+            if (marks > 0) {
+                for (int slot = 0; slot < slotValues.length; slot++) {
+                    if (slotValues[slot] != null) {
+                        record(MdcKey.ofSlot(slot), slotValues[slot], slotNumbers[slot]);
+                    }
+                }
+                for (int index = 0; index < keys.length; index++) {
+                    if (keys[index] != null) {
+                        record(keys[index], values[index], numbers[index]);
+                    }
+                }
+            }
+            clear();
+        }
+
+        void clear() {
+            if (shared) {
+                keys = new String[keys.length];
+                values = new Object[values.length];
+                numbers = new long[numbers.length];
+                slotValues = new Object[slotValues.length];
+                slotNumbers = new long[slotNumbers.length];
+                shared = false;
+            } else {
+                Arrays.fill(keys, null);
+                Arrays.fill(values, null);
+                Arrays.fill(slotValues, null);
+            }
+            size = 0;
+            slotSize = 0;
+            snapshot = null;
+        }
+
+        void adopt(final Snapshot source) {
+            keys = source.keys;
+            values = source.values;
+            numbers = source.numbers;
+            size = source.size;
+            registered = source.registered;
+            slotValues = source.slotValues;
+            slotNumbers = source.slotNumbers;
+            slotSize = source.slotSize;
+            shared = true;
+            snapshot = source;
+        }
+
+        Snapshot snapshot() {
+            if (snapshot == null) {
+                snapshot = new Snapshot(keys, values, numbers, size, slotValues, slotNumbers, slotSize, registered);
+                shared = true;
+            }
+            return snapshot;
+        }
+
+        void rollback(final int mark) {
+            final int activeMarks = marks;
+            marks = 0;
+            for (int position = undoTop - 1; position >= Math.max(mark, undoBottom); position--) {
+                final int index = position & (undoKeys.length - 1);
+                final Object key = undoKeys[index];
+                final Object previous = undoValues[index];
+                if (key instanceof MdcKey slotted) {
+                    if (previous == null) {
+                        removeSlot(slotted);
+                    } else {
+                        putSlot(slotted, previous, undoNumbers[index]);
+                    }
+                } else if (previous == null) {
+                    remove((String) key);
+                } else {
+                    put((String) key, previous, undoNumbers[index]);
+                }
+                undoKeys[index] = null;
+                undoValues[index] = null;
+            }
+            undoTop = Math.min(undoTop, mark);
+            undoBottom = Math.min(undoBottom, undoTop);
+            marks = Math.max(activeMarks - 1, 0);
+            if (undoTop == undoBottom) {
+                dropping = false;
+                if (undoKeys.length > RETAINED_UNDO_CAPACITY) {
+                    undoKeys = NO_VALUES;
+                    undoValues = NO_VALUES;
+                    undoNumbers = NO_NUMBERS;
+                }
+            }
+        }
+
+        private void record(final Object key, final Object previous, final long previousNumber) {
+            if (marks == 0) {
+                return;
+            }
+            if (undoTop - undoBottom == undoKeys.length) {
+                if (undoKeys.length < MAX_UNDO_ENTRIES) {
+                    growUndo();
+                } else {
+                    dropOldestUndo();
+                }
+            }
+            final int index = undoTop & (undoKeys.length - 1);
+            undoKeys[index] = key;
+            undoValues[index] = previous;
+            undoNumbers[index] = previousNumber;
+            undoTop++;
+        }
+
+        private void growUndo() {
+            final int capacity = Math.max(INITIAL_CAPACITY, undoKeys.length * 2);
+            final Object[] grownKeys = new Object[capacity];
+            final Object[] grownValues = new Object[capacity];
+            final long[] grownNumbers = new long[capacity];
+            for (int position = undoBottom; position < undoTop; position++) {
+                final int from = position & (undoKeys.length - 1);
+                final int to = position & (capacity - 1);
+                grownKeys[to] = undoKeys[from];
+                grownValues[to] = undoValues[from];
+                grownNumbers[to] = undoNumbers[from];
+            }
+            undoKeys = grownKeys;
+            undoValues = grownValues;
+            undoNumbers = grownNumbers;
+        }
+
+        private void dropOldestUndo() {
+            if (!dropping) {
+                dropping = true;
+                droppedUndo = true;
+            }
+            final int index = undoBottom & (undoKeys.length - 1);
+            undoKeys[index] = null;
+            undoValues[index] = null;
+            undoBottom++;
+        }
+
+        private void writable() {
+            if (shared) {
+                keys = keys.clone();
+                values = values.clone();
+                numbers = numbers.clone();
+                slotValues = slotValues.clone();
+                slotNumbers = slotNumbers.clone();
+                shared = false;
+            }
+            snapshot = null;
+        }
+
+        private void grow() {
+            final String[] oldKeys = keys;
+            final Object[] oldValues = values;
+            final long[] oldNumbers = numbers;
+            keys = new String[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            numbers = new long[oldNumbers.length * 2];
+            for (int index = 0; index < oldKeys.length; index++) {
+                if (oldKeys[index] != null) {
+                    final int slot = -1 - indexOf(keys, oldKeys[index]);
+                    keys[slot] = oldKeys[index];
+                    values[slot] = oldValues[index];
+                    numbers[slot] = oldNumbers[index];
+                }
+            }
+        }
+
+        private void delete(int hole) {
+            final int mask = keys.length - 1;
+            int index = hole;
+            while (true) {
+                index = (index + 1) & mask;
+                final String key = keys[index];
+                if (key == null) {
+                    break;
+                }
+                // move the entry back into the hole when the hole lies on its probe path
+                if (((index - home(key, mask)) & mask) >= ((index - hole) & mask)) {
+                    keys[hole] = key;
+                    values[hole] = values[index];
+                    numbers[hole] = numbers[index];
+                    hole = index;
+                }
+            }
+            keys[hole] = null;
+            values[hole] = null;
+            size--;
+        }
+    }
+
+    /**
+     * Receives the entries of a {@link Snapshot}, numbers without formatting them.
+     */
+    public interface Visitor extends BiConsumer<String, String> {
+
+        void acceptNumber(String key, long value);
+    }
+
+    /**
+     * Immutable view of a thread's context at the time it was read.
+     */
+    public static final class Snapshot extends AbstractMap<String, String> {
+
+        private final String[] keys;
+        private final Object[] values;
+        private final long[] numbers;
+        private final int size;
+        private final Object[] slotValues;
+        private final long[] slotNumbers;
+        private final int slotSize;
+        private final int registered;
+
+        private Snapshot(final String[] keys, final Object[] values, final long[] numbers, final int size,
+                         final Object[] slotValues, final long[] slotNumbers, final int slotSize,
+                         final int registered) {
+            this.keys = keys;
+            this.values = values;
+            this.numbers = numbers;
+            this.size = size;
+            this.slotValues = slotValues;
+            this.slotNumbers = slotNumbers;
+            this.slotSize = slotSize;
+            this.registered = registered;
+        }
+
+        @Override
+        public String get(final Object key) {
+            if (!(key instanceof String name)) {
+                return null;
+            }
+            // a snapshot taken before a name was registered still has its entry in the hash table
+            if (size > 0) {
+                final int index = indexOf(keys, name);
+                if (index >= 0) {
+                    return format(values[index], numbers[index]);
+                }
+            }
+            final MdcKey slotted = slotSize == 0 ? null : MdcKey.find(name);
+            if (slotted == null || slotted.slot() >= slotValues.length || slotValues[slotted.slot()] == null) {
+                return null;
+            }
+            return format(slotValues[slotted.slot()], slotNumbers[slotted.slot()]);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            if (!(key instanceof String name)) {
+                return false;
+            }
+            return get(name) != null;
+        }
+
+        /**
+         * Counts every entry but those whose supplier returned {@code null}, calling the suppliers not called yet.
+         */
+        @Override
+        public int size() {
+            int count = size + slotSize;
+            for (final Object value : slotValues) {
+                if (value instanceof Lazy lazy && lazy.get() == null) {
+                    count--;
+                }
+            }
+            for (final Object value : values) {
+                if (value instanceof Lazy lazy && lazy.get() == null) {
+                    count--;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Visits the entries straight from the arrays, without creating an entry per key.
+         */
+        @Override
+        public void forEach(final BiConsumer<? super String, ? super String> action) {
+            for (int slot = 0; slot < slotValues.length; slot++) {
+                final String value = slotValues[slot] == null ? null : format(slotValues[slot], slotNumbers[slot]);
+                if (value != null) {
+                    action.accept(MdcKey.ofSlot(slot).name(), value);
+                }
+            }
+            for (int index = 0; index < keys.length; index++) {
+                final String value = keys[index] == null ? null : format(values[index], numbers[index]);
+                if (value != null) {
+                    action.accept(keys[index], value);
+                }
+            }
+        }
+
+        /**
+         * Like {@link #forEach}, but hands numbers to {@code visitor} unformatted.
+         */
+        public void visit(final Visitor visitor) {
+            for (int slot = 0; slot < slotValues.length; slot++) {
+                if (slotValues[slot] == NUMBER) {
+                    visitor.acceptNumber(MdcKey.ofSlot(slot).name(), slotNumbers[slot]);
+                } else if (slotValues[slot] != null) {
+                    final String value = format(slotValues[slot], 0L);
+                    if (value != null) {
+                        visitor.accept(MdcKey.ofSlot(slot).name(), value);
+                    }
+                }
+            }
+            for (int index = 0; index < keys.length; index++) {
+                if (keys[index] == null) {
+                    continue;
+                }
+                if (values[index] == NUMBER) {
+                    visitor.acceptNumber(keys[index], numbers[index]);
+                } else {
+                    final String value = format(values[index], 0L);
+                    if (value != null) {
+                        visitor.accept(keys[index], value);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return Snapshot.this.size();
+                }
+            };
+        }
+
+        /**
+         * Walks the slots, then the hash table, as one run of positions.
+         */
+        private final class EntryIterator implements Iterator<Entry<String, String>> {
+
+            private int index = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return index < slotValues.length + keys.length;
+            }
+
+            @Override
+            public Entry<String, String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int slot = index;
+                final int hashed = index - slotValues.length;
+                final Entry<String, String> entry = hashed < 0
+                        ? Map.entry(MdcKey.ofSlot(slot).name(), format(slotValues[slot], slotNumbers[slot]))
+                        : Map.entry(keys[hashed], format(values[hashed], numbers[hashed]));
+                index = advance(index + 1);
+                return entry;
+            }
+
+            private int advance(int from) {
+                while (from < slotValues.length && absent(slotValues[from])) {
+                    from++;
+                }
+                while (from >= slotValues.length && from - slotValues.length < keys.length
+                        && (keys[from - slotValues.length] == null || absent(values[from - slotValues.length]))) {
+                    from++;
+                }
+                return from;
+            }
+
+            private static boolean absent(final Object value) {
+                return value == null || value instanceof Lazy lazy && lazy.get() == null;
+            }
+        }
+    }
+
+    /**
+     * A supplier put with {@link #putLazy}, called at most once: every snapshot sharing the entry reads the result
+     * of the first call.
+     */
+    private static final class Lazy {
+
+        private final Supplier<String> supplier;
+        private volatile boolean called;
+        private String value;
+
+        Lazy(final Supplier<String> supplier) {
+            this.supplier = supplier;
+        }
+
+        String get() {
+            if (!called) {
+                synchronized (this) {
+                    if (!called) {
+                        value = supplier.get();
+                        called = true;
+                    }
+                }
+            }
+            return value;
+        }
+    }
+
+    private static final class Installed {
+        private static final ArrayMdcAdapter ADAPTER =
+                MDC.getMDCAdapter() instanceof ArrayMdcAdapter adapter ? adapter : null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.mdcwrapper.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.util.ContextInitializer;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.joran.spi.JoranException;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.IMarkerFactory;
+import org.slf4j.helpers.BasicMarkerFactory;
+import org.slf4j.helpers.Util;
+import org.slf4j.spi.MDCAdapter;
+import org.slf4j.spi.SLF4JServiceProvider;
+
+/**
+ * SLF4J provider that binds Logback with an {@link ArrayMdcAdapter} instead of Logback's copy-on-write adapter.
+ * <p>
+ * Select it with {@code -Dslf4j.provider=com.example.mdcwrapper.logging.ArrayMdcServiceProvider} so SLF4J does
+ * not have to choose between it and Logback's own provider.
+ */
+public final class ArrayMdcServiceProvider implements SLF4JServiceProvider {
+
+    public static final String REQUESTED_API_VERSION = "2.0.99";
+
+    private LoggerContext loggerContext;
+    private IMarkerFactory markerFactory;
+    private ArrayMdcAdapter mdcAdapter;
+
+    @Override
+    public void initialize() {
+        loggerContext = new LoggerContext();
+        loggerContext.setName(CoreConstants.DEFAULT_CONTEXT_NAME);
+        mdcAdapter = new ArrayMdcAdapter();
+        loggerContext.setMDCAdapter(mdcAdapter);
+        try {
+            new ContextInitializer(loggerContext).autoConfig();
+        } catch (final JoranException e) {
+            Util.report("Failed to auto configure default logger context", e);
+        }
+        loggerContext.start();
+        markerFactory = new BasicMarkerFactory();
+    }
+
+    @Override
+    public ILoggerFactory getLoggerFactory() {
+        return loggerContext;
+    }
+
+    @Override
+    public IMarkerFactory getMarkerFactory() {
+        return markerFactory;
+    }
+
+    @Override
+    public MDCAdapter getMDCAdapter() {
+        return mdcAdapter;
+    }
+
+    @Override
+    public String getRequestedApiVersion() {
+        return REQUESTED_API_VERSION;
+    }
+}
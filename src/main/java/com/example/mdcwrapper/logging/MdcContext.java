@@ -0,0 +1,177 @@
+package com.example.mdcwrapper.logging;
+
+import org.slf4j.MDC;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * The MDC of the thread that captured it, to be restored around a task that runs on another thread.
+ * <p>
+ * With {@link ArrayMdcAdapter} installed, capturing is O(1): it keeps the thread's immutable snapshot and the
+ * innermost {@link ScopedMdc} frame, and the snapshot's arrays are only copied if the capturing thread writes to
+ * its MDC afterwards. With any other adapter the context map is copied.
+ */
+public final class MdcContext {
+
+    private static final MdcContext EMPTY = new MdcContext(null, null, null);
+
+    private final ArrayMdcAdapter.Snapshot snapshot;
+    private final ScopedMdc.Frame frame;
+    private final Map<String, String> copy;
+
+    private MdcContext(final ArrayMdcAdapter.Snapshot snapshot, final ScopedMdc.Frame frame,
+                       final Map<String, String> copy) {
+        this.snapshot = snapshot;
+        this.frame = frame;
+        this.copy = copy;
+    }
+
+    public static MdcContext capture() {
+        final ArrayMdcAdapter adapter = ArrayMdcAdapter.installed();
+        if (adapter == null) {
+            final Map<String, String> copy = MDC.getCopyOfContextMap();
+            return copy == null || copy.isEmpty()
+                    ? EMPTY
+                    : new MdcContext(null, null, Collections.unmodifiableMap(copy));
+        }
+        final ArrayMdcAdapter.Snapshot snapshot = adapter.capture();
+        final ScopedMdc.Frame frame = ArrayMdcAdapter.SCOPED_FRAMES ? ScopedMdc.current() : null;
+        return snapshot == null && frame == null ? EMPTY : new MdcContext(snapshot, frame, null);
+    }
+
+    /**
+     * Returns a context holding {@code entries}, e.g. ones taken from {@link #entries()} earlier.
+     */
+    public static MdcContext of(final Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return EMPTY;
+        }
+        if (entries instanceof ArrayMdcAdapter.Snapshot snapshot) {
+            return new MdcContext(snapshot, null, null);
+        }
+        return ArrayMdcAdapter.installed() == null
+                ? new MdcContext(null, null, Collections.unmodifiableMap(new HashMap<>(entries)))
+                : new MdcContext(ArrayMdcAdapter.snapshotOf(entries), null, null);
+    }
+
+    /**
+     * Returns the captured MDC entries as an immutable map, without any {@link ScopedMdc} frame.
+     */
+    public Map<String, String> entries() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return copy != null ? copy : Map.of();
+    }
+
+    /**
+     * Makes this context the current thread's MDC and returns what it replaced, for {@link #restore}.
+     * <p>
+     * Unlike {@link #run}, this does not bind the captured {@link ScopedMdc} frame, which needs to wrap the code it
+     * applies to; it suits callers that only get a hook before and after, such as coroutine dispatchers.
+     */
+    public Object install() {
+        final ArrayMdcAdapter adapter = ArrayMdcAdapter.installed();
+        return adapter == null ? enter() : adapter.attach(snapshot);
+    }
+
+    /**
+     * Puts back the MDC that {@link #install} replaced.
+     */
+    @SuppressWarnings("unchecked")
+    public static void restore(final Object previous) {
+        final ArrayMdcAdapter adapter = ArrayMdcAdapter.installed();
+        if (adapter == null) {
+            exit((Map<String, String>) previous);
+        } else {
+            adapter.detach(previous);
+        }
+    }
+
+    /**
+     * Runs {@code task} with this context as the current thread's MDC, then puts the thread's own MDC back.
+     */
+    public void run(final Runnable task) {
+        final ArrayMdcAdapter adapter = ArrayMdcAdapter.installed();
+        if (adapter == null) {
+            final Map<String, String> previous = enter();
+            try {
+                task.run();
+            } finally {
+                exit(previous);
+            }
+            return;
+        }
+        final Object previous = adapter.attach(snapshot);
+        try {
+            if (frame == null) {
+                task.run();
+            } else {
+                ScopedMdc.runIn(frame, task);
+            }
+        } finally {
+            adapter.detach(previous);
+        }
+    }
+
+    public <T> T call(final Callable<T> task) throws Exception {
+        final ArrayMdcAdapter adapter = ArrayMdcAdapter.installed();
+        if (adapter == null) {
+            final Map<String, String> previous = enter();
+            try {
+                return task.call();
+            } finally {
+                exit(previous);
+            }
+        }
+        final Object previous = adapter.attach(snapshot);
+        try {
+            return frame == null ? task.call() : ScopedMdc.callIn(frame, task);
+        } finally {
+            adapter.detach(previous);
+        }
+    }
+
+    public Runnable wrap(final Runnable task) {
+        return () -> run(task);
+    }
+
+    public <T> Callable<T> wrap(final Callable<T> task) {
+        return () -> call(task);
+    }
+
+    public <T> Supplier<T> wrap(final Supplier<T> task) {
+        return () -> {
+            try {
+                return call(task::get);
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Exception e) {
+                // Supplier.get cannot throw checked exceptions
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private Map<String, String> enter() {
+        final Map<String, String> previous = MDC.getCopyOfContextMap();
+        if (copy == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(copy);
+        }
+        return previous;
+    }
+
+    private static void exit(final Map<String, String> previous) {
+        if (previous == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(previous);
+        }
+    }
+}
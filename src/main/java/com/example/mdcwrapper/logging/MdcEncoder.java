@@ -0,0 +1,282 @@
+package com.example.mdcwrapper.logging;
+
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Encoder that renders {@code pattern} and appends the MDC as one section, e.g.
+ * {@code ... - Finished adding a new goat MDC: name=Billy, id=1}.
+ * <p>
+ * Replaces {@code %replace(%X){'.+', 'MDC:'} %X}, which rendered the MDC twice and ran a regex over it. The
+ * section is written straight into a reused byte buffer, as {@code key=value} pairs or as a JSON object, and is
+ * left out when the MDC is empty. Numbers put through {@link ArrayMdcAdapter#putLong} are written as digits without
+ * becoming strings first. Exceptions are written after the line, as the pattern layout would.
+ * <pre>
+ * &lt;encoder class="com.example.mdcwrapper.logging.MdcEncoder"&gt;
+ *     &lt;pattern&gt;%d [%thread] %-5level %logger{36} - %msg&lt;/pattern&gt;
+ *     &lt;format&gt;KEY_VALUE&lt;/format&gt;
+ *     &lt;color&gt;true&lt;/color&gt;
+ * &lt;/encoder&gt;
+ * </pre>
+ */
+public final class MdcEncoder extends EncoderBase<ILoggingEvent> {
+
+    /**
+     * How the MDC section is written.
+     */
+    public enum Format {
+        /** {@code key=value, key=value}, like {@code %X}. */
+        KEY_VALUE,
+        /** {@code {"key":"value","key":"value"}}. */
+        JSON
+    }
+
+    private static final String CYAN = "\u001B[36m";
+    private static final String RESET = "\u001B[0;39m";
+
+    private final AtomicReference<Buffer> spare = new AtomicReference<>();
+    private final PatternLayout layout = new PatternLayout();
+    private String pattern;
+    private Format format = Format.KEY_VALUE;
+    private boolean color;
+    private String prefix = "MDC:";
+
+    @Override
+    public void start() {
+        if (pattern == null) {
+            addError("No pattern set for the MDC encoder.");
+            return;
+        }
+        // exceptions are written after the MDC section
+        layout.setPattern(pattern + "%nopex");
+        layout.setContext(getContext());
+        layout.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        layout.stop();
+        super.stop();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(final ILoggingEvent event) {
+        Buffer buffer = spare.getAndSet(null);
+        if (buffer == null) {
+            buffer = new Buffer();
+        }
+        buffer.size = 0;
+        buffer.append(layout.doLayout(event));
+        final Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null && !mdc.isEmpty()) {
+            buffer.append(' ');
+            if (color) {
+                buffer.append(CYAN);
+            }
+            buffer.append(prefix);
+            buffer.append(' ');
+            buffer.first = true;
+            if (format == Format.JSON) {
+                buffer.append('{');
+                buffer.entries(mdc);
+                buffer.append('}');
+            } else {
+                buffer.entries(mdc);
+            }
+            if (color) {
+                buffer.append(RESET);
+            }
+        }
+        buffer.append(CoreConstants.LINE_SEPARATOR);
+        final IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            buffer.append(ThrowableProxyUtil.asString(throwable));
+        }
+        final byte[] bytes = Arrays.copyOf(buffer.bytes, buffer.size);
+        spare.set(buffer);
+        return bytes;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    public void setPattern(final String pattern) {
+        this.pattern = pattern;
+    }
+
+    public void setFormat(final Format format) {
+        this.format = format;
+    }
+
+    public void setColor(final boolean color) {
+        this.color = color;
+    }
+
+    public void setPrefix(final String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * UTF-8 bytes of the event being encoded; writes MDC entries as they are visited.
+     */
+    private final class Buffer implements ArrayMdcAdapter.Visitor {
+
+        private byte[] bytes = new byte[512];
+        private int size;
+        private boolean first;
+
+        void entries(final Map<String, String> mdc) {
+            if (mdc instanceof ArrayMdcAdapter.Snapshot snapshot) {
+                snapshot.visit(this);
+            } else {
+                mdc.forEach(this);
+            }
+        }
+
+        @Override
+        public void acceptNumber(final String key, final long value) {
+            if (format == Format.JSON) {
+                if (!first) {
+                    append(',');
+                }
+                appendJson(key);
+                append(":\"");
+                append(value);
+                append('"');
+            } else {
+                if (!first) {
+                    append(", ");
+                }
+                append(key);
+                append('=');
+                append(value);
+            }
+            first = false;
+        }
+
+        @Override
+        public void accept(final String key, final String value) {
+            if (format == Format.JSON) {
+                if (!first) {
+                    append(',');
+                }
+                appendJson(key);
+                append(':');
+                appendJson(value);
+            } else {
+                if (!first) {
+                    append(", ");
+                }
+                append(key);
+                append('=');
+                append(value);
+            }
+            first = false;
+        }
+
+        void append(final String text) {
+            final String chars = text == null ? "null" : text;
+            final int length = chars.length();
+            ensure(length * 3);
+            for (int index = 0; index < length; index++) {
+                final char c = chars.charAt(index);
+                if (c < 0x80) {
+                    bytes[size++] = (byte) c;
+                } else {
+                    index = appendNonAscii(chars, index);
+                }
+            }
+        }
+
+        void append(final char c) {
+            ensure(1);
+            bytes[size++] = (byte) c;
+        }
+
+        void append(final long number) {
+            ensure(20);
+            if (number < 0) {
+                bytes[size++] = '-';
+            }
+            // digits are negative, so that Long.MIN_VALUE needs no special case
+            long rest = number < 0 ? number : -number;
+            int end = size;
+            for (long scan = rest; scan <= -10; scan /= 10) {
+                end++;
+            }
+            size = end + 1;
+            do {
+                bytes[end--] = (byte) ('0' - rest % 10);
+                rest /= 10;
+            } while (rest != 0);
+        }
+
+        private void appendJson(final String text) {
+            append('"');
+            final String chars = text == null ? "" : text;
+            for (int index = 0; index < chars.length(); index++) {
+                final char c = chars.charAt(index);
+                if (c == '"' || c == '\\') {
+                    append('\\');
+                    append(c);
+                } else if (c < 0x20) {
+                    append(String.format("\\u%04x", (int) c));
+                } else if (c < 0x80) {
+                    append(c);
+                } else {
+                    ensure(4);
+                    index = appendNonAscii(chars, index);
+                }
+            }
+            append('"');
+        }
+
+        private int appendNonAscii(final String chars, final int index) {
+            final char c = chars.charAt(index);
+            if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | c >> 6);
+                bytes[size++] = (byte) (0x80 | c & 0x3F);
+                return index;
+            }
+            if (Character.isHighSurrogate(c) && index + 1 < chars.length()
+                    && Character.isLowSurrogate(chars.charAt(index + 1))) {
+                final int code = Character.toCodePoint(c, chars.charAt(index + 1));
+                bytes[size++] = (byte) (0xF0 | code >> 18);
+                bytes[size++] = (byte) (0x80 | code >> 12 & 0x3F);
+                bytes[size++] = (byte) (0x80 | code >> 6 & 0x3F);
+                bytes[size++] = (byte) (0x80 | code & 0x3F);
+                return index + 1;
+            }
+            if (Character.isSurrogate(c)) {
+                bytes[size++] = '?';
+                return index;
+            }
+            bytes[size++] = (byte) (0xE0 | c >> 12);
+            bytes[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+            bytes[size++] = (byte) (0x80 | c & 0x3F);
+            return index;
+        }
+
+        private void ensure(final int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.mdcwrapper.logging;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Executors and CompletableFuture helpers that run tasks with the MDC of the thread that submitted them.
+ * <p>
+ * The context is captured with {@link MdcContext#capture()} at submit time and restored around the task, so log
+ * lines written by the task carry the submitter's MdcWrapper entries.
+ */
+public final class MdcExecutors {
+
+    private MdcExecutors() {
+    }
+
+    public static Executor wrap(final Executor executor) {
+        if (executor instanceof ExecutorService service) {
+            return wrap(service);
+        }
+        return task -> executor.execute(MdcContext.capture().wrap(task));
+    }
+
+    public static ExecutorService wrap(final ExecutorService executor) {
+        return executor instanceof MdcExecutorService ? executor : new MdcExecutorService(executor);
+    }
+
+    public static <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier, final Executor executor) {
+        return CompletableFuture.supplyAsync(MdcContext.capture().wrap(supplier), executor);
+    }
+
+    public static CompletableFuture<Void> runAsync(final Runnable runnable, final Executor executor) {
+        return CompletableFuture.runAsync(MdcContext.capture().wrap(runnable), executor);
+    }
+
+    private static <T> List<Callable<T>> wrapAll(final Collection<? extends Callable<T>> tasks) {
+        final MdcContext context = MdcContext.capture();
+        return tasks.stream().map(context::wrap).toList();
+    }
+
+    private static final class MdcExecutorService implements ExecutorService {
+
+        private final ExecutorService delegate;
+
+        private MdcExecutorService(final ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            delegate.execute(MdcContext.capture().wrap(command));
+        }
+
+        @Override
+        public Future<?> submit(final Runnable task) {
+            return delegate.submit(MdcContext.capture().wrap(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(final Runnable task, final T result) {
+            return delegate.submit(MdcContext.capture().wrap(task), result);
+        }
+
+        @Override
+        public <T> Future<T> submit(final Callable<T> task) {
+            return delegate.submit(MdcContext.capture().wrap(task));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks)
+                throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks, final long timeout,
+                                             final TimeUnit unit) throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(final Collection<? extends Callable<T>> tasks)
+                throws InterruptedException, ExecutionException {
+            return delegate.invokeAny(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.invokeAny(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.mdcwrapper.logging;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * MDC key declared up front, e.g. {@code static final MdcKey ID = MdcKey.of("id")}, that {@link ArrayMdcAdapter}
+ * keeps in a fixed slot of each thread's context: putting or removing it indexes an array instead of hashing and
+ * comparing the name.
+ * <p>
+ * Slots are handed out in registration order and never reused, and registering a name twice returns the same key.
+ * Entries put or read by the name of a registered key, e.g. {@code MDC.get("id")}, go to its slot as well; an entry
+ * put under the name before it was registered moves to the slot on its context's next access.
+ */
+public final class MdcKey {
+
+    private static final Object LOCK = new Object();
+    private static volatile MdcKey[] keys = new MdcKey[0];
+    private static volatile Map<String, MdcKey> byName = Map.of();
+
+    private final String name;
+    private final int slot;
+
+    private MdcKey(final String name, final int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the key named {@code name}, registering it on first use.
+     */
+    public static MdcKey of(final String name) {
+        final MdcKey existing = byName.get(Objects.requireNonNull(name, "name"));
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (LOCK) {
+            final MdcKey registered = byName.get(name);
+            if (registered != null) {
+                return registered;
+            }
+            final MdcKey key = new MdcKey(name, keys.length);
+            final MdcKey[] grown = Arrays.copyOf(keys, keys.length + 1);
+            grown[key.slot] = key;
+            final Map<String, MdcKey> names = new HashMap<>(byName);
+            names.put(name, key);
+            // the slot must be resolvable before the name can be found
+            keys = grown;
+            byName = Map.copyOf(names);
+            return key;
+        }
+    }
+
+    /**
+     * Returns the registered key named {@code name}, or {@code null}.
+     */
+    static MdcKey find(final String name) {
+        final Map<String, MdcKey> names = byName;
+        return names.isEmpty() ? null : names.get(name);
+    }
+
+    static MdcKey ofSlot(final int slot) {
+        return keys[slot];
+    }
+
+    static int count() {
+        return keys.length;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    int slot() {
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
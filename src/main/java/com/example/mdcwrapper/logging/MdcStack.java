@@ -0,0 +1,139 @@
+package com.example.mdcwrapper.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread stack of MDC changes for scopes running on an MDC adapter other than {@link ArrayMdcAdapter}, which
+ * keeps an equivalent log of its own.
+ * <p>
+ * Each scope takes a {@link #mark()}, puts its entries through {@link #put}, which records the value each key had
+ * before, and on close calls {@link #rollback(int)}: that walks back only the scope's own changes and puts shadowed
+ * values back, so an inner scope reusing a key such as "id" leaves the outer scope's value in place. The arrays are
+ * reused by every scope on the thread and shrink back once the thread leaves its outermost scope, if a deep burst
+ * grew them past {@link #RETAINED_CAPACITY} entries.
+ * <p>
+ * The stack holds at most {@link #MAX_ENTRIES} changes. Beyond that, which takes scopes that are never closed, the
+ * oldest change is dropped with a warning and its key is no longer restored; {@link #reset()} empties the stack,
+ * e.g. between requests.
+ */
+public final class MdcStack {
+
+    static final int MAX_ENTRIES = 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MdcStack.class);
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int RETAINED_CAPACITY = 256;
+    private static final ThreadLocal<MdcStack> STACKS = ThreadLocal.withInitial(MdcStack::new);
+
+    // a ring of changes: positions count puts, and those below bottom were dropped
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private String[] previous = new String[INITIAL_CAPACITY];
+    private int bottom;
+    private int top;
+    private boolean dropping;
+
+    private MdcStack() {
+    }
+
+    public static MdcStack current() {
+        return STACKS.get();
+    }
+
+    /**
+     * Forgets the current thread's changes without touching the MDC, for callers that clear the MDC themselves,
+     * such as a filter cleaning up after a scope that was never closed.
+     */
+    public static void reset() {
+        STACKS.get().clear();
+    }
+
+    /**
+     * Returns the position to roll back to when the scope opened now closes.
+     */
+    public int mark() {
+        return top;
+    }
+
+    /**
+     * Puts {@code value} into the MDC, recording the value it replaces.
+     */
+    public void put(final String key, final String value) {
+        if (top - bottom == keys.length) {
+            if (keys.length < MAX_ENTRIES) {
+                grow();
+            } else {
+                dropOldest();
+            }
+        }
+        final int index = top & (keys.length - 1);
+        keys[index] = key;
+        previous[index] = MDC.get(key);
+        top++;
+        MDC.put(key, value);
+    }
+
+    /**
+     * Undoes every put since {@code mark}, newest first, so a key put twice ends up with its value from before both.
+     */
+    public void rollback(final int mark) {
+        for (int position = top - 1; position >= Math.max(mark, bottom); position--) {
+            final int index = position & (keys.length - 1);
+            if (previous[index] == null) {
+                MDC.remove(keys[index]);
+            } else {
+                MDC.put(keys[index], previous[index]);
+            }
+            keys[index] = null;
+            previous[index] = null;
+        }
+        top = Math.min(top, mark);
+        bottom = Math.min(bottom, top);
+        if (top == bottom) {
+            dropping = false;
+            if (keys.length > RETAINED_CAPACITY) {
+                keys = new String[INITIAL_CAPACITY];
+                previous = new String[INITIAL_CAPACITY];
+            }
+        }
+    }
+
+    private void grow() {
+        final String[] grownKeys = new String[keys.length * 2];
+        final String[] grownPrevious = new String[keys.length * 2];
+        for (int position = bottom; position < top; position++) {
+            grownKeys[position & (grownKeys.length - 1)] = keys[position & (keys.length - 1)];
+            grownPrevious[position & (grownKeys.length - 1)] = previous[position & (keys.length - 1)];
+        }
+        keys = grownKeys;
+        previous = grownPrevious;
+    }
+
+    private void dropOldest() {
+        if (!dropping) {
+            dropping = true;
+            LOGGER.warn("MDC scope stack is full at {} changes, dropping the oldest; a scope is probably never closed",
+                    MAX_ENTRIES);
+        }
+        final int index = bottom & (keys.length - 1);
+        keys[index] = null;
+        previous[index] = null;
+        bottom++;
+    }
+
+    private void clear() {
+        if (keys.length > RETAINED_CAPACITY) {
+            keys = new String[INITIAL_CAPACITY];
+            previous = new String[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(keys, null);
+            Arrays.fill(previous, null);
+        }
+        bottom = 0;
+        top = 0;
+        dropping = false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.mdcwrapper.logging;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitter's MDC into tasks run by Spring's task executors.
+ * <p>
+ * Spring Boot applies a single TaskDecorator bean to the auto-configured application task executor, which also
+ * runs Spring MVC async request processing and {@code @Async} methods.
+ */
+@Component
+public final class MdcTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(final Runnable runnable) {
+        return MdcContext.capture().wrap(runnable);
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.mdcwrapper.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous appender that hands events to a single writer thread through a preallocated ring buffer.
+ * <p>
+ * Each event is prepared for deferred processing before it is enqueued, so its message, thread name and MDC are
+ * captured on the logging thread; with {@link ArrayMdcAdapter} the MDC capture is an O(1) snapshot. The writer
+ * encodes events into one large buffer and writes it to the console in a single call once the buffer is full or
+ * the ring is empty.
+ * <p>
+ * The ring is a bounded lock-free queue with a sequence number per slot. When it is full the
+ * {@link OverflowPolicy} decides what gives way; dropped events, including those that fail to encode, are counted in
+ * {@link #getDroppedCount()}.
+ * <pre>
+ * &lt;appender name="RING" class="com.example.mdcwrapper.logging.RingBufferAsyncAppender"&gt;
+ *     &lt;capacity&gt;8192&lt;/capacity&gt;
+ *     &lt;overflowPolicy&gt;DROP_DEBUG&lt;/overflowPolicy&gt;
+ *     &lt;encoder class="com.example.mdcwrapper.logging.MdcEncoder"&gt;...&lt;/encoder&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public final class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    /**
+     * What happens to an event that does not fit.
+     */
+    public enum OverflowPolicy {
+        /** Wait for the writer to make room. */
+        BLOCK,
+        /** Drop DEBUG and TRACE events once the ring is 80% full; wait for room for the others. */
+        DROP_DEBUG,
+        /** Drop the oldest queued event to make room. */
+        DROP_OLDEST
+    }
+
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+    private static final long FULL_PARK_NANOS = 10_000L;
+
+    private Encoder<ILoggingEvent> encoder;
+    private int capacity = 8192;
+    private int batchBytes = 64 * 1024;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_DEBUG;
+    private String target = "System.out";
+    private long maxFlushMillis = 1000;
+    private OutputStream out;
+
+    private Object[] slots;
+    private AtomicLongArray sequences;
+    private int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean waiting;
+    private Thread writer;
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + name + "].");
+            return;
+        }
+        if (capacity < 2) {
+            addError("Capacity of the appender named [" + name + "] must be at least 2.");
+            return;
+        }
+        final int size = Integer.highestOneBit(capacity * 2 - 1);
+        slots = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int index = 0; index < size; index++) {
+            sequences.set(index, index);
+        }
+        mask = size - 1;
+        tail.set(0);
+        head.set(0);
+        if (out == null) {
+            out = new FileOutputStream("System.err".equalsIgnoreCase(target) ? FileDescriptor.err : FileDescriptor.out);
+        }
+        super.start();
+        writer = new Thread(this::drain, "ring-buffer-appender-" + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        LockSupport.unpark(writer);
+        try {
+            writer.join(maxFlushMillis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            addWarn("Writer of the appender named [" + name + "] did not finish within " + maxFlushMillis + " ms.");
+        }
+    }
+
+    @Override
+    protected void append(final ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (overflowPolicy == OverflowPolicy.DROP_DEBUG && !event.getLevel().isGreaterOrEqual(Level.INFO)
+                && tail.get() - head.get() > (slots.length * 4L) / 5) {
+            dropped.increment();
+            return;
+        }
+        while (!offer(event)) {
+            if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                if (poll() != null) {
+                    dropped.increment();
+                }
+            } else if (!isStarted() || !writer.isAlive()) {
+                dropped.increment();
+                return;
+            } else {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            }
+        }
+        if (waiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private boolean offer(final ILoggingEvent event) {
+        long position = tail.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = event;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private ILoggingEvent poll() {
+        long position = head.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    final ILoggingEvent event = (ILoggingEvent) slots[index];
+                    slots[index] = null;
+                    sequences.set(index, position + slots.length);
+                    return event;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    private void drain() {
+        final Batch batch = new Batch(batchBytes);
+        batch.add(encoder.headerBytes());
+        while (true) {
+            final ILoggingEvent event = poll();
+            if (event != null) {
+                encode(batch, event);
+                continue;
+            }
+            batch.flush();
+            if (!isStarted()) {
+                if (tail.get() == head.get()) {
+                    break;
+                }
+                continue;
+            }
+            waiting = true;
+            if (tail.get() == head.get()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            waiting = false;
+        }
+        batch.add(encoder.footerBytes());
+        batch.flush();
+    }
+
+    /**
+     * Adds the event to the batch, or drops it if encoding fails, e.g. on an MDC supplier that throws, so that one
+     * bad event does not stop the writer.
+     */
+    private void encode(final Batch batch, final ILoggingEvent event) {
+        final byte[] bytes;
+        try {
+            bytes = encoder.encode(event);
+        } catch (final RuntimeException e) {
+            dropped.increment();
+            addError("Failed to encode an event of the appender named [" + name + "].", e);
+            return;
+        }
+        batch.add(bytes);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueueSize() {
+        return (int) Math.max(tail.get() - head.get(), 0);
+    }
+
+    public void setEncoder(final Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public void setCapacity(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void setBatchBytes(final int batchBytes) {
+        this.batchBytes = batchBytes;
+    }
+
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setTarget(final String target) {
+        this.target = target;
+    }
+
+    public void setMaxFlushMillis(final long maxFlushMillis) {
+        this.maxFlushMillis = maxFlushMillis;
+    }
+
+    void setOutputStream(final OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Encoded events waiting to be written in one call; only touched by the writer thread.
+     */
+    private final class Batch {
+
+        private final byte[] buffer;
+        private int size;
+
+        Batch(final int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void add(final byte[] bytes) {
+            if (bytes == null || bytes.length == 0) {
+                return;
+            }
+            if (size + bytes.length > buffer.length) {
+                flush();
+            }
+            if (bytes.length > buffer.length) {
+                write(bytes, bytes.length);
+                return;
+            }
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void flush() {
+            if (size > 0) {
+                write(buffer, size);
+                size = 0;
+            }
+        }
+
+        private void write(final byte[] bytes, final int length) {
+            try {
+                out.write(bytes, 0, length);
+                out.flush();
+            } catch (final IOException e) {
+                addError("Failed to write events of the appender named [" + name + "].", e);
+            }
+        }
+    }
+}
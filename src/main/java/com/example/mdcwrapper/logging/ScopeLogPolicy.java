@@ -0,0 +1,113 @@
+package com.example.mdcwrapper.logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides per scope whether its Started/Finished lines are logged.
+ * <p>
+ * A rule applies to an action, or to a logger and the loggers below it, and combines 1-in-N sampling with a token
+ * bucket. The action rule wins over logger rules, and the most specific logger rule wins over its parents. All
+ * scopes matched by one rule share its bucket. Without rules every scope is logged.
+ * <p>
+ * The decision is lock-free: sampling draws from {@link ThreadLocalRandom}, and the bucket is kept as a single
+ * theoretical arrival time that is advanced with one compare-and-set.
+ */
+public final class ScopeLogPolicy {
+
+    private static final Limiter UNLIMITED = new Limiter(1, 0, 1);
+
+    private static final Map<String, Limiter> RULES = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, Limiter>> RESOLVED = new ConcurrentHashMap<>();
+    private static volatile boolean configured;
+
+    private ScopeLogPolicy() {
+    }
+
+    /**
+     * Logs one in {@code sampleEvery} scopes of {@code actionOrLogger}, and of those at most {@code ratePerSecond}
+     * with bursts of up to {@code burst}; a rate of 0 means no rate limit.
+     */
+    public static void configure(final String actionOrLogger, final int sampleEvery, final double ratePerSecond,
+                                 final int burst) {
+        if (sampleEvery < 1 || ratePerSecond < 0 || burst < 1) {
+            throw new IllegalArgumentException("invalid scope logging rule for " + actionOrLogger);
+        }
+        final long intervalNanos = ratePerSecond == 0 ? 0 : (long) (1_000_000_000L / ratePerSecond);
+        RULES.put(actionOrLogger, new Limiter(sampleEvery, intervalNanos, burst));
+        RESOLVED.clear();
+        configured = true;
+    }
+
+    public static void reset() {
+        configured = false;
+        RULES.clear();
+        RESOLVED.clear();
+    }
+
+    /**
+     * Returns whether a scope of {@code action} opened on {@code loggerName} logs its Started/Finished lines.
+     */
+    public static boolean admit(final String loggerName, final String action) {
+        return !configured || limiter(loggerName, action).admit();
+    }
+
+    private static Limiter limiter(final String loggerName, final String action) {
+        Map<String, Limiter> actions = RESOLVED.get(loggerName);
+        if (actions == null) {
+            actions = RESOLVED.computeIfAbsent(loggerName, ignored -> new ConcurrentHashMap<>());
+        }
+        final Limiter limiter = actions.get(action);
+        return limiter != null ? limiter : actions.computeIfAbsent(action, ignored -> resolve(loggerName, action));
+    }
+
+    private static Limiter resolve(final String loggerName, final String action) {
+        final Limiter byAction = RULES.get(action);
+        if (byAction != null) {
+            return byAction;
+        }
+        for (String name = loggerName; !name.isEmpty(); name = name.substring(0, Math.max(name.lastIndexOf('.'), 0))) {
+            final Limiter byLogger = RULES.get(name);
+            if (byLogger != null) {
+                return byLogger;
+            }
+        }
+        return UNLIMITED;
+    }
+
+    private static final class Limiter {
+
+        private final int sampleEvery;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong arrival = new AtomicLong(System.nanoTime());
+
+        Limiter(final int sampleEvery, final long intervalNanos, final int burst) {
+            this.sampleEvery = sampleEvery;
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = intervalNanos * (burst - 1);
+        }
+
+        boolean admit() {
+            if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+                return false;
+            }
+            if (intervalNanos == 0) {
+                return true;
+            }
+            final long now = System.nanoTime();
+            while (true) {
+                final long current = arrival.get();
+                final long start = current - now > 0 ? current : now;
+                if (start - now > toleranceNanos) {
+                    return false;
+                }
+                if (arrival.compareAndSet(current, start + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.mdcwrapper.logging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Installs the {@link ScopeLogPolicy} rules configured under {@code mdcwrapper.scope-logging.rules}, keyed by
+ * action or logger name, e.g.
+ * <pre>
+ * mdcwrapper.scope-logging.rules.[serving\ GET].sample-every=10
+ * mdcwrapper.scope-logging.rules.[com.example.mdcwrapper.java].rate-per-second=100
+ * </pre>
+ * A scope is admitted once, under the action it opens with. The request scope of
+ * {@link com.example.mdcwrapper.web.RequestScopeFilter} opens as e.g. "serving GET" before its route is known, so
+ * its rules are keyed by method or by the filter's logger name, never by route.
+ */
+@Component
+@EnableConfigurationProperties(ScopeLogSettings.Properties.class)
+public final class ScopeLogSettings {
+
+    public ScopeLogSettings(final Properties properties) {
+        ScopeLogPolicy.reset();
+        properties.rules().forEach((name, rule) ->
+                ScopeLogPolicy.configure(name, rule.sampleEvery(), rule.ratePerSecond(), rule.burst()));
+    }
+
+    @ConfigurationProperties("mdcwrapper.scope-logging")
+    public record Properties(@DefaultValue Map<String, Rule> rules) {
+    }
+
+    public record Rule(@DefaultValue("1") int sampleEvery, @DefaultValue("0") double ratePerSecond,
+                       @DefaultValue("10") int burst) {
+    }
+}
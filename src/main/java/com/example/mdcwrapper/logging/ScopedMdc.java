@@ -0,0 +1,116 @@
+package com.example.mdcwrapper.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * MDC entries bound to a {@link ScopedValue} instead of a ThreadLocal.
+ * <p>
+ * Each scope binds an immutable {@link Frame} that points at the frame of the enclosing scope, so nothing has to
+ * be removed when the scope ends and nothing can leak into the next task run by the same (virtual) thread.
+ * {@link ArrayMdcAdapter} reads the current frame whenever the MDC is read, which makes the entries visible to
+ * {@code MDC.get} and to logging events.
+ * <p>
+ * ScopedValue is a preview API on JDK 24. Only this class touches it, and its signatures stick to
+ * {@link Runnable}, {@link Supplier} and {@link Callable}, so callers do not need {@code --enable-preview} to load.
+ */
+public final class ScopedMdc {
+
+    private static final ScopedValue<Frame> FRAME = ScopedValue.newInstance();
+
+    private ScopedMdc() {
+    }
+
+    public static void run(final Map<String, String> entries, final Runnable body) {
+        ScopedValue.where(FRAME, new Frame(current(), entries)).run(body);
+    }
+
+    public static <T> T call(final Map<String, String> entries, final Supplier<? extends T> body) {
+        return ScopedValue.where(FRAME, new Frame(current(), entries)).call(body::get);
+    }
+
+    /**
+     * Returns the innermost bound frame, or {@code null}; used to carry the scoped entries over to another thread.
+     */
+    public static Frame current() {
+        return FRAME.isBound() ? FRAME.get() : null;
+    }
+
+    public static void runIn(final Frame frame, final Runnable body) {
+        if (frame == null) {
+            body.run();
+        } else {
+            ScopedValue.where(FRAME, frame).run(body);
+        }
+    }
+
+    public static <T> T callIn(final Frame frame, final Callable<? extends T> body) throws Exception {
+        return frame == null ? body.call() : ScopedValue.where(FRAME, frame).call(body::call);
+    }
+
+    public static boolean isBound() {
+        return FRAME.isBound();
+    }
+
+    /**
+     * Returns the value bound by the innermost scope that set {@code key}, or {@code null}.
+     */
+    public static String get(final String key) {
+        for (Frame frame = current(); frame != null; frame = frame.parent) {
+            for (int index = frame.keys.length - 1; index >= 0; index--) {
+                if (frame.keys[index].equals(key)) {
+                    return frame.values[index];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies the entries of every bound frame into {@code target}, inner frames overriding outer ones.
+     */
+    public static void copyInto(final Map<String, String> target) {
+        if (FRAME.isBound()) {
+            FRAME.get().copyInto(target);
+        }
+    }
+
+    public static Map<String, String> snapshot() {
+        final Map<String, String> snapshot = new HashMap<>();
+        copyInto(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Immutable set of entries bound by one scope, linked to the frame of the enclosing scope.
+     */
+    public static final class Frame {
+
+        private final Frame parent;
+        private final String[] keys;
+        private final String[] values;
+
+        private Frame(final Frame parent, final Map<String, String> entries) {
+            this.parent = parent;
+            this.keys = new String[entries.size()];
+            this.values = new String[entries.size()];
+            int index = 0;
+            for (final Map.Entry<String, String> entry : entries.entrySet()) {
+                keys[index] = entry.getKey();
+                values[index] = entry.getValue();
+                index++;
+            }
+        }
+
+        private void copyInto(final Map<String, String> target) {
+            if (parent != null) {
+                parent.copyInto(target);
+            }
+            for (int index = 0; index < keys.length; index++) {
+                target.put(keys[index], values[index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.mdcwrapper.metrics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-action counts, error counts and latency histograms, keyed by MdcWrapper action, e.g.
+ * "serving GET /api/goats" or "adding a new goat".
+ * <p>
+ * Recording never takes a lock: counters are {@link LongAdder}s and histograms are striped. {@link #snapshot()}
+ * reads them while writers keep going, so the numbers of one action may be a few requests apart.
+ * <p>
+ * Scopes are timed unless the JVM runs with {@code -Dmdcwrapper.timing=false}; the flag is a constant so the
+ * JIT removes the timing code entirely when it is off.
+ */
+public final class ActionMetrics {
+
+    public static final boolean TIMING_ENABLED =
+            Boolean.parseBoolean(System.getProperty("mdcwrapper.timing", "true"));
+
+    private static final ActionMetrics GLOBAL = new ActionMetrics();
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+    public static ActionMetrics global() {
+        return GLOBAL;
+    }
+
+    public void record(final String action, final long nanos) {
+        record(action, nanos, false);
+    }
+
+    /**
+     * Records one closed scope; {@code failed} marks a scope that was closed while an exception propagated.
+     */
+    public void record(final String action, final long nanos, final boolean failed) {
+        final Recorder recorder = recorder(action);
+        recorder.histogram.record(nanos);
+        if (failed) {
+            recorder.errors.increment();
+        }
+    }
+
+    public LatencyHistogram histogram(final String action) {
+        return recorder(action).histogram;
+    }
+
+    public long errors(final String action) {
+        return recorder(action).errors.sum();
+    }
+
+    public List<ActionStats> snapshot() {
+        return recorders.entrySet().stream()
+                .map(entry -> ActionStats.of(entry.getKey(), entry.getValue().histogram.snapshot(),
+                        entry.getValue().errors.sum()))
+                .sorted(Comparator.comparing(ActionStats::action))
+                .toList();
+    }
+
+    private Recorder recorder(final String action) {
+        final Recorder recorder = recorders.get(action);
+        return recorder != null ? recorder : recorders.computeIfAbsent(action, ignored -> new Recorder());
+    }
+
+    private static final class Recorder {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * Latency percentiles of one action in milliseconds.
+     */
+    public record ActionStats(String action, long count, long errors, double p50Millis, double p90Millis,
+                              double p99Millis, double maxMillis) {
+
+        static ActionStats of(final String action, final LatencyHistogram.Snapshot histogram, final long errors) {
+            return new ActionStats(action, histogram.count(), errors,
+                    millis(histogram.percentile(0.50)), millis(histogram.percentile(0.90)),
+                    millis(histogram.percentile(0.99)), millis(histogram.max()));
+        }
+
+        private static double millis(final long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
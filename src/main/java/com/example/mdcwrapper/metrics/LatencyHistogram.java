@@ -0,0 +1,113 @@
+package com.example.mdcwrapper.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of nanosecond latencies.
+ * <p>
+ * Values below {@value #SUB_BUCKETS} get a bucket each; above that every power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, which bounds the relative error of a reported value to 1/16.
+ * <p>
+ * Requests of one action tend to land in the same few buckets, so the counters are striped by thread: each
+ * stripe is a separate region of the array and concurrent recorders rarely share a cache line.
+ * {@link #snapshot()} sums the stripes without stopping writers.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final int STRIPES =
+            Integer.highestOneBit(Math.min(Math.max(Runtime.getRuntime().availableProcessors(), 1), 8) * 2 - 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long nanos) {
+        final long value = Math.max(nanos, 0L);
+        counts.getAndIncrement(stripe() * BUCKETS + indexOf(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long count() {
+        return snapshot().count();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the value at {@code quantile} (0..1), or 0 when empty.
+     */
+    public long percentile(final double quantile) {
+        return snapshot().percentile(quantile);
+    }
+
+    public Snapshot snapshot() {
+        final long[] merged = new long[BUCKETS];
+        long count = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            final int offset = stripe * BUCKETS;
+            for (int index = 0; index < BUCKETS; index++) {
+                final long bucket = counts.get(offset + index);
+                merged[index] += bucket;
+                count += bucket;
+            }
+        }
+        return new Snapshot(merged, count, max.get());
+    }
+
+    private static int stripe() {
+        final long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        final int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << shift;
+    }
+
+    static long upperBound(final int index) {
+        return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Bucket counts summed over all stripes at one point in time.
+     */
+    public record Snapshot(long[] counts, long count, long max) {
+
+        public long percentile(final double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int index = 0; index < counts.length; index++) {
+                seen += counts[index];
+                if (seen >= rank) {
+                    return Math.min(upperBound(index), max);
+                }
+            }
+            return max;
+        }
+    }
+}
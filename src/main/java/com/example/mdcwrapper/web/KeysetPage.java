@@ -0,0 +1,85 @@
+package com.example.mdcwrapper.web;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * One page of a keyset-paginated list, ordered by id.
+ * <p>
+ * The cursor is the opaque, URL-safe encoding of the last id on the page; the next page is read with
+ * {@code WHERE id > :after ORDER BY id LIMIT :limit}, so every page costs the same however deep it is.
+ *
+ * @param items      the entities on this page
+ * @param nextCursor cursor of the next page, or {@code null} on the last page
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * Builds a page from up to {@code limit + 1} rows; the extra row only tells that there is a next page.
+     */
+    public static <T> KeysetPage<T> of(final List<T> rows, final int limit, final ToLongFunction<T> id) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        final List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(List.copyOf(items), encode(id.applyAsLong(items.getLast())));
+    }
+
+    public static int limit(final Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (requested < 1) {
+            throw new InvalidLimitException("limit must be positive");
+        }
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    /**
+     * Returns the id after which the page starts, 0 for the first page.
+     */
+    public static long after(final String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            final byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new InvalidCursorException("invalid cursor");
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (final IllegalArgumentException e) {
+            throw new InvalidCursorException("invalid cursor");
+        }
+    }
+
+    static String encode(final long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+    }
+
+    /**
+     * Thrown for a cursor the client made up.
+     */
+    public static final class InvalidCursorException extends RuntimeException {
+
+        public InvalidCursorException(final String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown for a page size below 1.
+     */
+    public static final class InvalidLimitException extends IllegalArgumentException {
+
+        public InvalidLimitException(final String message) {
+            super(message);
+        }
+    }
+}
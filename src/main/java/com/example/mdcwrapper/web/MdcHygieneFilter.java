@@ -0,0 +1,58 @@
+package com.example.mdcwrapper.web;
+
+import com.example.mdcwrapper.logging.ArrayMdcAdapter;
+import com.example.mdcwrapper.logging.MdcStack;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Guarantees that no MDC entries cross request boundaries.
+ * <p>
+ * MdcWrapper scopes remove their own entries, and in the virtual-thread mode every request runs on a fresh thread
+ * whose ThreadLocals die with it. Platform threads are pooled, though, so a scope that was never closed would leak
+ * into the next request served by that thread. This filter resets the context around every request and warns when
+ * it finds something left over.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public final class MdcHygieneFilter extends OncePerRequestFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        reset("before");
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            reset("after");
+        }
+    }
+
+    private void reset(final String when) {
+        final Map<String, String> leaked = MDC.getCopyOfContextMap();
+        if (leaked != null && !leaked.isEmpty()) {
+            logger.warn("Cleared MDC entries left over {} a request: {}", when, leaked.keySet());
+        }
+        final ArrayMdcAdapter adapter = ArrayMdcAdapter.installed();
+        if (adapter != null) {
+            adapter.reset();
+        } else {
+            MdcStack.reset();
+            MDC.clear();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.mdcwrapper.web;
+
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Streams the rows of a query as newline-delimited JSON.
+ * <p>
+ * Rows are read from a forward-only cursor {@value #FETCH_SIZE} at a time and written to the response as they
+ * come, so the heap holds one fetch and one output buffer whatever the size of the table. Writes block while the
+ * client is slow, which in turn stops the cursor from fetching: the response applies the backpressure.
+ */
+@Component
+public final class NdjsonExport {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int FETCH_SIZE = 500;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectWriter writer;
+
+    public NdjsonExport(final JdbcTemplate jdbcTemplate, final JsonMapper jsonMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writer = jsonMapper.writer();
+    }
+
+    /**
+     * Writes one JSON line per row of {@code sql} to {@code out} and returns how much was written.
+     */
+    public <T> Result write(final String sql, final RowMapper<T> rowMapper, final OutputStream out)
+            throws IOException {
+        try {
+            return jdbcTemplate.execute((ConnectionCallback<Result>) connection ->
+                    stream(connection, sql, rowMapper, out));
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> Result stream(final Connection connection, final String sql, final RowMapper<T> rowMapper,
+                              final OutputStream out) throws SQLException {
+        // most drivers only keep a cursor open inside a transaction; H2 only fetches lazily when told to
+        final boolean autoCommit = connection.getAutoCommit();
+        final boolean h2 = "H2".equals(connection.getMetaData().getDatabaseProductName());
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        if (h2) {
+            setLazyQueryExecution(connection, true);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                final OutputStream buffered = new BufferedOutputStream(out, BUFFER_BYTES);
+                long rows = 0;
+                long bytes = 0;
+                while (resultSet.next()) {
+                    final byte[] json = writer.writeValueAsBytes(rowMapper.mapRow(resultSet, (int) rows));
+                    buffered.write(json);
+                    buffered.write('\n');
+                    bytes += json.length + 1;
+                    rows++;
+                }
+                buffered.flush();
+                return new Result(rows, bytes);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (h2) {
+                setLazyQueryExecution(connection, false);
+            }
+            if (autoCommit) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void setLazyQueryExecution(final Connection connection, final boolean lazy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    /**
+     * Rows and bytes written by one export.
+     */
+    public record Result(long rows, long bytes) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.mdcwrapper.web;
+
+import com.example.mdcwrapper.java.MdcWrapper;
+import com.example.mdcwrapper.logging.MdcContext;
+import com.example.mdcwrapper.logging.MdcKey;
+import com.example.mdcwrapper.logging.ScopeLogPolicy;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Opens one root MdcWrapper scope per request, so that every line logged while serving it carries its request ID.
+ * <p>
+ * The ID comes from the {@code X-Request-Id} header when the client sends a plausible one and is otherwise 64 random
+ * bits from {@link ThreadLocalRandom}, which unlike {@code UUID.randomUUID()} shares no SecureRandom between threads.
+ * It is echoed in the response. The scope opens as e.g. "serving GET", because the route is only known once the
+ * request has been handled, and is then renamed after the route template, e.g. "serving GET /api/goats/{id}", so
+ * that the Finished line and the action metrics stay per route. {@link ScopeLogPolicy} decides whether the scope
+ * logs when it opens, so its rules match "serving GET" or this filter's logger, never the route.
+ * <p>
+ * An async request, such as an export, is still being written when the handler returns. Its scope is then handed
+ * off and closed by an {@link AsyncListener} once the response completes, so that its elapsed time and status cover
+ * the whole request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public final class RequestScopeFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final MdcKey STATUS = MdcKey.of("status");
+    private static final MdcKey ROUTE = MdcKey.of("route");
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final String requestId = requestId(request.getHeader(REQUEST_ID_HEADER));
+        final String method = request.getMethod();
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        final MdcWrapper mdc = MdcWrapper.info(logger, "serving " + method,
+                Map.of("requestId", requestId, "method", method));
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+            if (!async) {
+                mdc.put(STATUS, response.getStatus());
+            }
+        } catch (final IOException e) {
+            throw mdc.failed(e);
+        } catch (final ServletException e) {
+            throw mdc.failed(e);
+        } catch (final RuntimeException e) {
+            throw mdc.failed(e);
+        } catch (final Error e) {
+            throw mdc.failed(e);
+        } finally {
+            final Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (route != null) {
+                mdc.put(ROUTE, route.toString()).action("serving " + method + " " + route);
+            }
+            if (async) {
+                request.getAsyncContext().addListener(new Completion(mdc, mdc.handOff(), response));
+            } else {
+                mdc.close();
+            }
+        }
+    }
+
+    /**
+     * Closes the scope of an async request once its response is complete, on whichever thread completes it.
+     */
+    private static final class Completion implements AsyncListener {
+
+        private final MdcWrapper mdc;
+        private final MdcContext context;
+        private final HttpServletResponse response;
+        private volatile Throwable error;
+
+        private Completion(final MdcWrapper mdc, final MdcContext context, final HttpServletResponse response) {
+            this.mdc = mdc;
+            this.context = context;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            context.run(() -> {
+                if (error != null) {
+                    mdc.failed(error);
+                }
+                mdc.put(STATUS, response.getStatus()).close();
+            });
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+            error = new TimeoutException("async request timed out");
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+            error = event.getThrowable();
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+            // a new async cycle drops the listeners of the previous one
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    /**
+     * Returns a new request ID of 16 hex digits.
+     */
+    public static String newRequestId() {
+        long bits = ThreadLocalRandom.current().nextLong();
+        final char[] id = new char[16];
+        for (int i = id.length - 1; i >= 0; i--) {
+            id[i] = HEX[(int) bits & 0xF];
+            bits >>>= 4;
+        }
+        return new String(id);
+    }
+
+    /**
+     * Returns the inbound ID if it is short and safe to log as it is, a new one otherwise.
+     */
+    static String requestId(final String inbound) {
+        if (inbound == null || inbound.isEmpty() || inbound.length() > MAX_REQUEST_ID_LENGTH) {
+            return newRequestId();
+        }
+        for (int i = 0; i < inbound.length(); i++) {
+            final char c = inbound.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_'
+                    || c == '.')) {
+                return newRequestId();
+            }
+        }
+        return inbound;
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.mdcwrapper
 
 import com.example.mdcwrapper.java.GoatNotFoundException
+import com.example.mdcwrapper.java.GoatVersionConflictException
 import com.example.mdcwrapper.kotlin.NoteNotFoundException
+import com.example.mdcwrapper.kotlin.NoteVersionConflictException
+import com.example.mdcwrapper.web.KeysetPage
 import org.springframework.http.HttpStatus
 import org.springframework.http.ResponseEntity
 import org.springframework.web.bind.annotation.ExceptionHandler
@@ -20,6 +23,30 @@ class GlobalExceptionHandler {
         val errorResponse = ErrorResponse(ex.message ?: "Goat not found")
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse)
     }
+
+    @ExceptionHandler(NoteVersionConflictException::class)
+    fun handleNoteVersionConflictException(ex: NoteVersionConflictException): ResponseEntity<ErrorResponse> {
+        val errorResponse = ErrorResponse(ex.message ?: "Note was changed concurrently")
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse)
+    }
+
+    @ExceptionHandler(GoatVersionConflictException::class)
+    fun handleGoatVersionConflictException(ex: GoatVersionConflictException): ResponseEntity<ErrorResponse> {
+        val errorResponse = ErrorResponse(ex.message ?: "Goat was changed concurrently")
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse)
+    }
+
+    @ExceptionHandler(KeysetPage.InvalidCursorException::class)
+    fun handleInvalidCursorException(ex: KeysetPage.InvalidCursorException): ResponseEntity<ErrorResponse> {
+        val errorResponse = ErrorResponse(ex.message ?: "Invalid cursor")
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse)
+    }
+
+    @ExceptionHandler(KeysetPage.InvalidLimitException::class)
+    fun handleInvalidLimitException(ex: KeysetPage.InvalidLimitException): ResponseEntity<ErrorResponse> {
+        val errorResponse = ErrorResponse(ex.message ?: "Invalid limit")
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse)
+    }
 }
 
 data class ErrorResponse(
@@ -1,5 +1,6 @@
 package com.example.mdcwrapper
 
+import com.example.mdcwrapper.logging.ArrayMdcServiceProvider
 import org.springframework.boot.autoconfigure.SpringBootApplication
 import org.springframework.boot.runApplication
 import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories
@@ -9,5 +10,6 @@ import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories
 class MdcwrapperApplication
 
 fun main(args: Array<String>) {
+    System.getProperties().putIfAbsent("slf4j.provider", ArrayMdcServiceProvider::class.java.name)
     runApplication<MdcwrapperApplication>(*args)
 }
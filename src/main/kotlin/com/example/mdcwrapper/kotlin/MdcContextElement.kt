@@ -0,0 +1,85 @@
+package com.example.mdcwrapper.kotlin
+
+import com.example.mdcwrapper.logging.MdcContext
+import kotlinx.coroutines.CopyableThreadContextElement
+import kotlinx.coroutines.DelicateCoroutinesApi
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.withContext
+import org.slf4j.Logger
+import kotlin.coroutines.AbstractCoroutineContextElement
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * Coroutine context element that carries MDC entries across suspension points.
+ *
+ * Whenever the coroutine resumes, on whichever thread, [entries] become that thread's MDC; when it suspends, the
+ * thread's own MDC is put back and whatever the coroutine put into the MDC meanwhile is kept in [entries] for the
+ * next resume. With [com.example.mdcwrapper.logging.ArrayMdcAdapter] installed, both steps swap one immutable
+ * snapshot and copy nothing. Child coroutines start with a copy, so their entries do not leak into the parent.
+ *
+ * ```
+ * withContext(MdcContextElement()) { ... }
+ * ```
+ */
+@OptIn(ExperimentalCoroutinesApi::class, DelicateCoroutinesApi::class)
+class MdcContextElement(
+    entries: Map<String, String> = MdcContext.capture().entries(),
+) : AbstractCoroutineContextElement(Key),
+    CopyableThreadContextElement<Any?> {
+    private var context: MdcContext = MdcContext.of(entries)
+
+    /**
+     * The coroutine's MDC as of its last suspension, as an immutable map.
+     */
+    val entries: Map<String, String>
+        get() = context.entries()
+
+    override fun updateThreadContext(context: CoroutineContext): Any? = this.context.install()
+
+    override fun restoreThreadContext(
+        context: CoroutineContext,
+        oldState: Any?,
+    ) {
+        this.context = MdcContext.capture()
+        MdcContext.restore(oldState)
+    }
+
+    override fun copyForChild(): CopyableThreadContextElement<Any?> = MdcContextElement(entries)
+
+    override fun mergeForChild(overwritingElement: CoroutineContext.Element): CoroutineContext = overwritingElement
+
+    companion object Key : CoroutineContext.Key<MdcContextElement>
+}
+
+/**
+ * Suspending counterpart of `MdcWrapper.info(logger, action, *entries).use { block(it) }`.
+ */
+suspend fun <R> MdcWrapper.Companion.infoSuspending(
+    logger: Logger,
+    action: String,
+    vararg entries: Pair<String, String>,
+    block: suspend (MdcWrapper) -> R,
+): R = suspending({ info(logger, action, *entries) }, block)
+
+/**
+ * Suspending counterpart of `MdcWrapper.debug(logger, action, *entries).use { block(it) }`.
+ */
+suspend fun <R> MdcWrapper.Companion.debugSuspending(
+    logger: Logger,
+    action: String,
+    vararg entries: Pair<String, String>,
+    block: suspend (MdcWrapper) -> R,
+): R = suspending({ debug(logger, action, *entries) }, block)
+
+private suspend fun <R> suspending(
+    open: () -> MdcWrapper,
+    block: suspend (MdcWrapper) -> R,
+): R {
+    val parent = currentCoroutineContext()[MdcContextElement]?.entries ?: MdcContext.capture().entries()
+    // a fresh element keeps the scope's entries out of the caller's MDC once the scope is closed, even if the
+    // scope resumed on another thread and its wrapper could not roll them back
+    return withContext(MdcContextElement(parent)) {
+        open().use { block(it) }
+    }
+}
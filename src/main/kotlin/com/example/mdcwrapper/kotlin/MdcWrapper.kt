@@ -1,59 +1,440 @@
 package com.example.mdcwrapper.kotlin
 
+import com.example.mdcwrapper.logging.ArrayMdcAdapter
+import com.example.mdcwrapper.logging.MdcKey
+import com.example.mdcwrapper.logging.MdcStack
+import com.example.mdcwrapper.logging.ScopeLogPolicy
+import com.example.mdcwrapper.logging.ScopedMdc
+import com.example.mdcwrapper.metrics.ActionMetrics
 import org.slf4j.Logger
 import org.slf4j.MDC
 import org.slf4j.event.Level
+import org.slf4j.helpers.NOPLogger
+import java.util.function.Supplier
 
 class MdcWrapper private constructor(
     val logger: Logger,
     val level: Level,
     val action: String,
-    vararg entries: Pair<String, String>,
+    private val enabled: Boolean,
+    private val logging: Boolean,
+    private val adapter: ArrayMdcAdapter?,
+    /** The opening thread's stack when [adapter] is not installed; `null` for [DISABLED], which never rolls back. */
+    private val stack: MdcStack?,
+    entries: Array<out Pair<String, String>>,
+    deferStart: Boolean = false,
 ) : AutoCloseable {
-    private val keys: MutableList<String> = ArrayList<String>()
+    /**
+     * Decides whether a scope touches the MDC when its Started/Finished lines are not logged.
+     */
+    enum class MdcMode {
+        /** Skip the MDC entirely when the scope's level is disabled. */
+        WHEN_LOGGED,
+
+        /** Put the MDC entries even when the Started/Finished lines are suppressed. */
+        ALWAYS,
+    }
+
+    private val mark: Int = adapter?.mark() ?: stack?.mark() ?: 0
+
+    private var startNanos = 0L
+    private var failed = false
 
     init {
         entries.forEach {
             val (key, value) = it
-            MDC.put(key, value)
-            keys.add(key)
+            put(key, value)
+        }
+        if (!deferStart) {
+            start()
+        }
+    }
+
+    /**
+     * Logs "Started" and starts the clock; the scope builders call it once their entries are in the MDC.
+     */
+    @PublishedApi
+    internal fun start() {
+        if (this === DISABLED) {
+            return
         }
         log("Started {}")
+        startNanos = if (ActionMetrics.TIMING_ENABLED) System.nanoTime() else 0L
     }
 
     fun put(
         key: String,
         value: String,
     ): MdcWrapper {
-        MDC.put(key, value)
-        keys.add(key)
+        if (this === DISABLED) {
+            return this
+        }
+        val stack = ownStack()
+        if (stack != null) {
+            stack.put(key, value)
+        } else {
+            MDC.put(key, value)
+        }
         return this
     }
 
+    /**
+     * Puts [value] as a number; with [ArrayMdcAdapter] installed it is only formatted if a logging event renders it.
+     */
+    fun put(
+        key: String,
+        value: Long,
+    ): MdcWrapper {
+        if (this === DISABLED) {
+            return this
+        }
+        if (adapter != null) {
+            adapter.putLong(key, value)
+            return this
+        }
+        return put(key, value.toString())
+    }
+
+    fun put(
+        key: String,
+        value: Int,
+    ): MdcWrapper = put(key, value.toLong())
+
+    /**
+     * Puts [value], which with [ArrayMdcAdapter] installed is only called if a logging event renders the entry,
+     * possibly on an appender thread.
+     */
+    fun put(
+        key: String,
+        value: Supplier<String>,
+    ): MdcWrapper {
+        if (this === DISABLED) {
+            return this
+        }
+        if (adapter != null) {
+            adapter.putLazy(key, value)
+            return this
+        }
+        return put(key, value.get())
+    }
+
+    /**
+     * Puts [value] under a registered key; with [ArrayMdcAdapter] installed it goes straight to the key's slot.
+     */
+    fun put(
+        key: MdcKey,
+        value: String,
+    ): MdcWrapper {
+        if (this === DISABLED) {
+            return this
+        }
+        if (adapter != null) {
+            adapter.put(key, value)
+            return this
+        }
+        return put(key.name(), value)
+    }
+
+    fun put(
+        key: MdcKey,
+        value: Long,
+    ): MdcWrapper {
+        if (this === DISABLED) {
+            return this
+        }
+        if (adapter != null) {
+            adapter.putLong(key, value)
+            return this
+        }
+        return put(key.name(), value.toString())
+    }
+
+    fun put(
+        key: MdcKey,
+        value: Int,
+    ): MdcWrapper = put(key, value.toLong())
+
+    /**
+     * Puts an entry from a scope builder's block; numbers and suppliers are only formatted if they are logged.
+     */
+    fun mdc(
+        key: String,
+        value: String,
+    ) {
+        put(key, value)
+    }
+
+    fun mdc(
+        key: String,
+        value: Long,
+    ) {
+        put(key, value)
+    }
+
+    fun mdc(
+        key: String,
+        value: Int,
+    ) {
+        put(key, value.toLong())
+    }
+
+    fun mdc(
+        key: String,
+        value: Supplier<String>,
+    ) {
+        put(key, value)
+    }
+
+    fun mdc(
+        key: MdcKey,
+        value: String,
+    ) {
+        put(key, value)
+    }
+
+    fun mdc(
+        key: MdcKey,
+        value: Long,
+    ) {
+        put(key, value)
+    }
+
+    fun mdc(
+        key: MdcKey,
+        value: Int,
+    ) {
+        put(key, value.toLong())
+    }
+
+    fun mdc(
+        key: String,
+        value: Boolean,
+    ) {
+        if (this !== DISABLED) {
+            put(key, if (value) "true" else "false")
+        }
+    }
+
+    /**
+     * Marks the scope as failed so it counts as an error, and returns [error] for throwing.
+     */
+    fun <T : Throwable> failed(error: T): T {
+        if (this === DISABLED) {
+            return error
+        }
+        failed = true
+        if (enabled) {
+            put(ERROR, error.javaClass.simpleName)
+        }
+        return error
+    }
+
+    /**
+     * Like [kotlin.use], but marks the scope as failed when [block] throws.
+     */
+    inline fun <R> use(block: (MdcWrapper) -> R): R {
+        try {
+            return block(this)
+        } catch (e: Throwable) {
+            failed(e)
+            throw e
+        } finally {
+            close()
+        }
+    }
+
     override fun close() {
-        log("Finished {}")
-        keys.forEach(MDC::remove)
+        if (this === DISABLED) {
+            return
+        }
+        if (ActionMetrics.TIMING_ENABLED) {
+            val elapsed = System.nanoTime() - startNanos
+            ActionMetrics.global().record(action, elapsed, failed)
+            if (logging || failed && enabled) {
+                put(ELAPSED, elapsed / 1_000)
+            }
+        }
+        if (logging || failed && enabled) {
+            log(logger, level, "Finished {}", action)
+        }
+        if (adapter != null) {
+            adapter.rollback(mark)
+        } else {
+            ownStack()?.rollback(mark)
+        }
     }
 
+    /**
+     * Returns [stack] while the scope runs on the thread that opened it, and `null` once it has resumed on another
+     * thread, whose stack it must not touch; there the coroutine's [MdcContextElement] discards its entries.
+     */
+    private fun ownStack(): MdcStack? = stack?.takeIf { it === MdcStack.current() }
+
     private fun log(format: String) {
-        if (level == Level.INFO) {
-            logger.info(format, action)
-        } else {
-            logger.debug(format, action)
+        if (logging) {
+            log(logger, level, format, action)
         }
     }
 
     companion object {
+        private val ELAPSED = MdcKey.of("elapsedMicros")
+        private val ERROR = MdcKey.of("error")
+
+        private val NO_ENTRIES = emptyArray<Pair<String, String>>()
+        private val DISABLED = MdcWrapper(NOPLogger.NOP_LOGGER, Level.DEBUG, "", false, false, null, null, NO_ENTRIES)
+
+        private fun log(
+            logger: Logger,
+            level: Level,
+            format: String,
+            action: String,
+        ) {
+            if (level == Level.INFO) {
+                logger.info(format, action)
+            } else {
+                logger.debug(format, action)
+            }
+        }
+
+        private fun open(
+            logger: Logger,
+            level: Level,
+            action: String,
+            mode: MdcMode,
+            entries: Array<out Pair<String, String>>,
+            deferStart: Boolean = false,
+        ): MdcWrapper {
+            val enabled = logger.isEnabledForLevel(level)
+            if (!enabled && mode == MdcMode.WHEN_LOGGED) {
+                return DISABLED
+            }
+            val logging = enabled && ScopeLogPolicy.admit(logger.name, action)
+            val adapter = ArrayMdcAdapter.installed()
+            val stack = if (adapter == null) MdcStack.current() else null
+            return MdcWrapper(logger, level, action, enabled, logging, adapter, stack, entries, deferStart)
+        }
+
+        /**
+         * Opens a scope whose "Started" line waits for [start], so that a builder can put its entries first.
+         */
+        @PublishedApi
+        internal fun openDeferred(
+            logger: Logger,
+            level: Level,
+            action: String,
+        ): MdcWrapper = open(logger, level, action, MdcMode.WHEN_LOGGED, NO_ENTRIES, deferStart = true)
+
+        @PublishedApi
+        internal inline fun <R> scope(
+            wrapper: MdcWrapper,
+            entries: MdcWrapper.() -> Unit,
+            block: MdcWrapper.() -> R,
+        ): R {
+            return wrapper.use {
+                it.entries()
+                it.start()
+                it.block()
+            }
+        }
+
+        /**
+         * Like `info(logger, action, *entries).use { }` without the [Pair]s, the vararg array and the lambdas:
+         * [entries] puts the entries logged with "Started", e.g. `{ mdc("id", id) }`, and [block] runs with the
+         * scope as receiver. Both are inlined, so a scope allocates nothing beyond its MDC writes, and nothing at
+         * all when its level is disabled.
+         */
+        inline fun <R> infoScope(
+            logger: Logger,
+            action: String,
+            entries: MdcWrapper.() -> Unit = {},
+            block: MdcWrapper.() -> R,
+        ): R = scope(openDeferred(logger, Level.INFO, action), entries, block)
+
+        /**
+         * DEBUG counterpart of [infoScope].
+         */
+        inline fun <R> debugScope(
+            logger: Logger,
+            action: String,
+            entries: MdcWrapper.() -> Unit = {},
+            block: MdcWrapper.() -> R,
+        ): R = scope(openDeferred(logger, Level.DEBUG, action), entries, block)
+
+        fun info(
+            logger: Logger,
+            action: String,
+            vararg entries: Pair<String, String>,
+        ): MdcWrapper = open(logger, Level.INFO, action, MdcMode.WHEN_LOGGED, entries)
+
         fun info(
             logger: Logger,
             action: String,
+            mode: MdcMode,
             vararg entries: Pair<String, String>,
-        ): MdcWrapper = MdcWrapper(logger, Level.INFO, action, *entries)
+        ): MdcWrapper = open(logger, Level.INFO, action, mode, entries)
 
         fun debug(
             logger: Logger,
             action: String,
             vararg entries: Pair<String, String>,
-        ): MdcWrapper = MdcWrapper(logger, Level.DEBUG, action, *entries)
+        ): MdcWrapper = open(logger, Level.DEBUG, action, MdcMode.WHEN_LOGGED, entries)
+
+        fun debug(
+            logger: Logger,
+            action: String,
+            mode: MdcMode,
+            vararg entries: Pair<String, String>,
+        ): MdcWrapper = open(logger, Level.DEBUG, action, mode, entries)
+
+        /**
+         * Runs [body] with [entries] bound through [ScopedMdc] rather than the thread-local MDC.
+         */
+        fun <T> run(
+            logger: Logger,
+            action: String,
+            vararg entries: Pair<String, String>,
+            body: () -> T,
+        ): T = runScoped(logger, Level.INFO, action, entries, body)
+
+        /**
+         * Like [run], logging "Started" and "Finished" at [level].
+         */
+        fun <T> run(
+            logger: Logger,
+            level: Level,
+            action: String,
+            vararg entries: Pair<String, String>,
+            body: () -> T,
+        ): T = runScoped(logger, level, action, entries, body)
+
+        private fun <T> runScoped(
+            logger: Logger,
+            level: Level,
+            action: String,
+            entries: Array<out Pair<String, String>>,
+            body: () -> T,
+        ): T {
+            if (!logger.isEnabledForLevel(level)) {
+                return body()
+            }
+            val logging = ScopeLogPolicy.admit(logger.name, action)
+            return ScopedMdc.call(mapOf(*entries)) {
+                if (logging) {
+                    log(logger, level, "Started {}", action)
+                }
+                val start = if (ActionMetrics.TIMING_ENABLED) System.nanoTime() else 0L
+                var failed = true
+                try {
+                    body().also { failed = false }
+                } finally {
+                    if (ActionMetrics.TIMING_ENABLED) {
+                        ActionMetrics.global().record(action, System.nanoTime() - start, failed)
+                    }
+                    if (logging || failed) {
+                        log(logger, level, "Finished {}", action)
+                    }
+                }
+            }
+        }
     }
 }
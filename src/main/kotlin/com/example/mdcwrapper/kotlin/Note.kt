@@ -1,9 +1,15 @@
 package com.example.mdcwrapper.kotlin
 
 import org.springframework.data.annotation.Id
+import org.springframework.data.annotation.Version
 
+/**
+ * [version] is bumped by every update; send it back with an update to have it rejected when someone else changed
+ * the note in the meantime, or leave it out to overwrite unconditionally.
+ */
 data class Note(
     @Id val id: Long? = null,
     val title: String,
     val content: String,
+    @Version val version: Long? = null,
 )
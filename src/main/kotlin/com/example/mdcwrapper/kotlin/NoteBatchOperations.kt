@@ -0,0 +1,68 @@
+package com.example.mdcwrapper.kotlin
+
+import com.example.mdcwrapper.jdbc.JdbcBatch
+
+/**
+ * Bulk writes of notes as JDBC batches, each call in one transaction.
+ */
+interface NoteBatchOperations {
+    /**
+     * Inserts every note and returns the generated ids, in order.
+     */
+    fun insertBatch(notes: List<Note>): List<Long>
+
+    /**
+     * Updates every note by id; throws [NoteNotFoundException] and changes nothing if one does not exist.
+     */
+    fun updateBatch(notes: List<Note>)
+
+    /**
+     * Deletes every note by id; throws [NoteNotFoundException] and deletes nothing if one does not exist.
+     */
+    fun deleteBatch(ids: List<Long>)
+}
+
+/**
+ * [NoteBatchOperations] on [JdbcBatch]; Spring Data mixes it into [NoteRepository].
+ */
+internal class NoteBatchOperationsImpl(
+    private val jdbcBatch: JdbcBatch,
+) : NoteBatchOperations {
+    override fun insertBatch(notes: List<Note>): List<Long> =
+        jdbcBatch
+            .inTransaction {
+                jdbcBatch.insert("INSERT INTO NOTE (TITLE, CONTENT) VALUES (?, ?)", notes) { statement, note ->
+                    statement.setString(1, note.title)
+                    statement.setString(2, note.content)
+                }
+            }.toList()
+
+    override fun updateBatch(notes: List<Note>) {
+        if (notes.any { it.id == null }) {
+            throw NoteNotFoundException()
+        }
+        jdbcBatch.inTransaction {
+            requireAll(
+                jdbcBatch.update("UPDATE NOTE SET TITLE = ?, CONTENT = ?, VERSION = VERSION + 1 WHERE ID = ?", notes) { statement, note ->
+                    statement.setString(1, note.title)
+                    statement.setString(2, note.content)
+                    statement.setLong(3, note.id!!)
+                },
+            )
+        }
+    }
+
+    override fun deleteBatch(ids: List<Long>) {
+        jdbcBatch.inTransaction {
+            requireAll(jdbcBatch.update("DELETE FROM NOTE WHERE ID = ?", ids) { statement, id -> statement.setLong(1, id) })
+        }
+    }
+
+    // thrown inside the transaction, so the rows already written are rolled back
+    private fun requireAll(counts: IntArray): IntArray {
+        if (counts.any { it == 0 }) {
+            throw NoteNotFoundException()
+        }
+        return counts
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.mdcwrapper.kotlin
 
-import org.slf4j.LoggerFactory
+import com.example.mdcwrapper.web.KeysetPage
 import org.springframework.http.HttpStatus
 import org.springframework.http.ResponseEntity
 import org.springframework.web.bind.annotation.*
@@ -10,35 +10,44 @@ import org.springframework.web.bind.annotation.*
 class NoteController(
     private val noteService: NoteService,
 ) {
-    private val logger = LoggerFactory.getLogger(this.javaClass)
-
     @PostMapping
     fun createNote(
         @RequestBody note: Note,
     ): ResponseEntity<Note> {
-        MdcWrapper.info(logger, "serving POST /api/notes").use {
-            // val createdNote = noteService.createNoteTheOldWay(note)
-            val createdNote = noteService.createNote(note)
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdNote)
-        }
+        // val createdNote = noteService.createNoteTheOldWay(note)
+        val createdNote = noteService.createNote(note)
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdNote)
+    }
+
+    @PostMapping("/bulk")
+    fun createNotes(
+        @RequestBody notes: List<Note>,
+    ): ResponseEntity<List<Long>> {
+        val ids = noteService.createNotes(notes)
+        return ResponseEntity.status(HttpStatus.CREATED).body(ids)
     }
 
     @GetMapping
+    fun getNotes(
+        @RequestParam(required = false) cursor: String?,
+        @RequestParam(required = false) limit: Int?,
+    ): ResponseEntity<KeysetPage<Note>> {
+        val page = noteService.getNotes(cursor, KeysetPage.limit(limit))
+        return ResponseEntity.ok(page)
+    }
+
+    @GetMapping(params = ["all=true"])
     fun getAllNotes(): ResponseEntity<List<Note>> {
-        MdcWrapper.info(logger, "serving GET /api/notes").use {
-            val notes = noteService.getAllNotes()
-            return ResponseEntity.ok(notes)
-        }
+        val notes = noteService.getAllNotes()
+        return ResponseEntity.ok(notes)
     }
 
     @GetMapping("/{id}")
     fun getNoteById(
         @PathVariable id: Long,
     ): ResponseEntity<Note> {
-        MdcWrapper.info(logger, "serving GET /api/notes/{id}", "id" to id.toString()).use {
-            val note = noteService.getNoteById(id)
-            return ResponseEntity.ok(note)
-        }
+        val note = noteService.getNoteById(id)
+        return ResponseEntity.ok(note)
     }
 
     @PutMapping("/{id}")
@@ -46,19 +55,31 @@ class NoteController(
         @PathVariable id: Long,
         @RequestBody note: Note,
     ): ResponseEntity<Note> {
-        MdcWrapper.info(logger, "serving PUT /api/notes/{id}", "id" to id.toString()).use {
-            val updatedNote = noteService.updateNote(id, note)
-            return ResponseEntity.ok(updatedNote)
-        }
+        val updatedNote = noteService.updateNote(id, note)
+        return ResponseEntity.ok(updatedNote)
+    }
+
+    @PutMapping("/bulk")
+    fun updateNotes(
+        @RequestBody notes: List<Note>,
+    ): ResponseEntity<Void> {
+        noteService.updateNotes(notes)
+        return ResponseEntity.noContent().build()
+    }
+
+    @DeleteMapping("/bulk")
+    fun deleteNotes(
+        @RequestBody ids: List<Long>,
+    ): ResponseEntity<Void> {
+        noteService.deleteNotes(ids)
+        return ResponseEntity.noContent().build()
     }
 
     @DeleteMapping("/{id}")
     fun deleteNote(
         @PathVariable id: Long,
     ): ResponseEntity<Void> {
-        MdcWrapper.info(logger, "serving DELETE /api/notes/{id}", "id" to id.toString()).use {
-            noteService.deleteNote(id)
-            return ResponseEntity.noContent().build()
-        }
+        noteService.deleteNote(id)
+        return ResponseEntity.noContent().build()
     }
 }
@@ -0,0 +1,38 @@
+package com.example.mdcwrapper.kotlin
+
+import com.example.mdcwrapper.logging.MdcKey
+import com.example.mdcwrapper.web.NdjsonExport
+import org.slf4j.LoggerFactory
+import org.springframework.http.ResponseEntity
+import org.springframework.jdbc.core.RowMapper
+import org.springframework.web.bind.annotation.GetMapping
+import org.springframework.web.bind.annotation.RequestMapping
+import org.springframework.web.bind.annotation.RestController
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody
+
+@RestController
+@RequestMapping("/api/notes/export")
+class NoteExportController(
+    private val export: NdjsonExport,
+) {
+    private val logger = LoggerFactory.getLogger(this.javaClass)
+
+    @GetMapping
+    fun exportNotes(): ResponseEntity<StreamingResponseBody> {
+        val body =
+            StreamingResponseBody { out ->
+                MdcWrapper.info(logger, "exporting notes").use { mdc ->
+                    val result = export.write(SQL, NOTE, out)
+                    mdc.put(ROWS, result.rows()).put(BYTES, result.bytes())
+                }
+            }
+        return ResponseEntity.ok().contentType(NdjsonExport.NDJSON).body(body)
+    }
+
+    private companion object {
+        const val SQL = "SELECT ID, TITLE, CONTENT, VERSION FROM NOTE ORDER BY ID"
+        val ROWS = MdcKey.of("rows")
+        val BYTES = MdcKey.of("bytes")
+        val NOTE = RowMapper { row, _ -> Note(row.getLong(1), row.getString(2), row.getString(3), row.getLong(4)) }
+    }
+}
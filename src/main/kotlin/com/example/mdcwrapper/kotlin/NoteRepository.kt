@@ -1,7 +1,59 @@
 package com.example.mdcwrapper.kotlin
 
+import org.springframework.data.jdbc.repository.query.Modifying
+import org.springframework.data.jdbc.repository.query.Query
 import org.springframework.data.repository.CrudRepository
 import org.springframework.stereotype.Repository
 
 @Repository
-interface NoteRepository : CrudRepository<Note, Long>
+interface NoteRepository :
+    CrudRepository<Note, Long>,
+    NoteBatchOperations {
+    /**
+     * Returns up to [limit] notes with an id greater than [after], ordered by id.
+     */
+    @Query("SELECT * FROM NOTE WHERE ID > :after ORDER BY ID LIMIT :limit")
+    fun findPageAfter(
+        after: Long,
+        limit: Int,
+    ): List<Note>
+
+    @Query("SELECT ID FROM NOTE")
+    fun findAllIds(): List<Long>
+
+    /**
+     * Overwrites the note in one statement and returns its new version, null if it does not exist.
+     * Selecting from the `FINAL TABLE` of the update is H2's form of `UPDATE ... RETURNING`.
+     */
+    @Query(
+        "SELECT VERSION FROM FINAL TABLE " +
+            "(UPDATE NOTE SET TITLE = :title, CONTENT = :content, VERSION = VERSION + 1 WHERE ID = :id)",
+    )
+    fun updateById(
+        id: Long,
+        title: String,
+        content: String,
+    ): Long?
+
+    /**
+     * Like [updateById], but also changes nothing when the note is no longer at [version].
+     */
+    @Query(
+        "SELECT VERSION FROM FINAL TABLE " +
+            "(UPDATE NOTE SET TITLE = :title, CONTENT = :content, VERSION = VERSION + 1 " +
+            "WHERE ID = :id AND VERSION = :version)",
+    )
+    fun updateByIdAndVersion(
+        id: Long,
+        title: String,
+        content: String,
+        version: Long,
+    ): Long?
+
+    /**
+     * Deletes the note in one statement and returns the number of rows deleted, 0 if it does not exist.
+     */
+    @Modifying
+    @Query("DELETE FROM NOTE WHERE ID = :id")
+    fun removeById(id: Long): Int
+}
@@ -1,5 +1,9 @@
 package com.example.mdcwrapper.kotlin
 
+import com.example.mdcwrapper.cache.IdFilter
+import com.example.mdcwrapper.cache.TinyLfuCache
+import com.example.mdcwrapper.logging.MdcKey
+import com.example.mdcwrapper.web.KeysetPage
 import org.slf4j.LoggerFactory
 import org.slf4j.MDC
 import org.springframework.stereotype.Service
@@ -9,6 +13,12 @@ class NoteService(
     private val noteRepository: NoteRepository,
 ) {
     private val logger = LoggerFactory.getLogger(this.javaClass)
+    private val noteCache = TinyLfuCache<Long, Note>("notes", 10_000)
+    private val noteIds = IdFilter("notes") { noteRepository.findAllIds() }
+
+    fun cacheStats(): TinyLfuCache.Stats = noteCache.stats()
+
+    fun idFilterStats(): IdFilter.Stats = noteIds.stats()
 
     fun createNoteTheOldWay(note: Note): Note {
         try {
@@ -16,8 +26,9 @@ class NoteService(
             logger.debug("Started creating a new note")
 
             return noteRepository
-                .save(note)
+                .save(note.asNew())
                 .also {
+                    noteIds.add(it.id!!)
                     MDC.put("id", it.id.toString())
                     logger.debug("Finished creating a new note")
                 }
@@ -26,28 +37,64 @@ class NoteService(
         }
     }
 
-    fun createNote(note: Note): Note {
-        MdcWrapper.debug(logger, "creating a new note", "title" to note.title).use { mdc ->
-            return noteRepository
-                .save(note)
-                .also { mdc.put("id", it.id.toString()) }
+    fun createNote(note: Note): Note =
+        MdcWrapper.debugScope(logger, "creating a new note", { mdc("title", note.title) }) {
+            val saved = noteRepository.save(note.asNew())
+            val id = saved.id!!
+            noteIds.add(id)
+            mdc(ID, id)
+            saved
         }
-    }
 
-    fun getAllNotes(): List<Note> {
-        MdcWrapper.debug(logger, "fetching all notes").use { mdc ->
-            return noteRepository
+    /**
+     * Drops any id and version the client sent, which would make Spring Data JDBC update instead of insert.
+     */
+    private fun Note.asNew(): Note = copy(id = null, version = null)
+
+    fun createNotes(notes: List<Note>): List<Long> =
+        MdcWrapper.debugScope(logger, "creating notes in bulk", { mdc(NOTES, notes.size) }) {
+            noteRepository.insertBatch(notes).onEach(noteIds::add)
+        }
+
+    fun getAllNotes(): List<Note> =
+        MdcWrapper.debugScope(logger, "fetching all notes") {
+            noteRepository
                 .findAll()
                 .toList()
-                .also { mdc.put("notes", it.size.toString()) }
+                .also { mdc(NOTES, it.size) }
+        }
+
+    fun getNotes(
+        cursor: String?,
+        limit: Int,
+    ): KeysetPage<Note> {
+        MdcWrapper.debugScope(logger, "fetching a page of notes") {
+            return KeysetPage
+                .of(noteRepository.findPageAfter(KeysetPage.after(cursor), limit + 1), limit) { it.id!! }
+                .also { mdc(NOTES, it.items().size) }
         }
     }
 
     fun getNoteById(id: Long): Note {
-        MdcWrapper.debug(logger, "getting a note").use {
-            return noteRepository
-                .findById(id)
-                .orElseThrow { NoteNotFoundException() }
+        MdcWrapper.debugScope(logger, "getting a note", { mdc(ID, id) }) {
+            val cached = noteCache.getIfPresent(id)
+            if (cached != null) {
+                mdc(CACHE, "hit")
+                return cached
+            }
+            if (!noteIds.mightContain(id)) {
+                mdc(CACHE, "absent")
+                throw NoteNotFoundException.stackless()
+            }
+            mdc(CACHE, "miss")
+            return noteCache.load(id) { key ->
+                noteRepository
+                    .findById(key)
+                    .orElseThrow {
+                        noteIds.falsePositive()
+                        NoteNotFoundException()
+                    }
+            }
         }
     }
 
@@ -55,26 +102,77 @@ class NoteService(
         id: Long,
         note: Note,
     ): Note {
-        MdcWrapper.debug(logger, "updating a note").use {
-            return noteRepository
-                .findById(id)
-                .map { noteRepository.save(note.copy(id = id)) }
-                .orElseThrow { NoteNotFoundException() }
+        MdcWrapper.debugScope(logger, "updating a note", { mdc(ID, id) }) {
+            val version =
+                if (note.version == null) {
+                    noteRepository.updateById(id, note.title, note.content)
+                } else {
+                    noteRepository.updateByIdAndVersion(id, note.title, note.content, note.version)
+                }
+            noteCache.invalidate(id)
+            if (version == null) {
+                // only failed updates pay for a second statement, to tell a stale version from a missing note
+                throw if (note.version != null && noteRepository.existsById(id)) {
+                    NoteVersionConflictException()
+                } else {
+                    NoteNotFoundException()
+                }
+            }
+            return note.copy(id = id, version = version)
+        }
+    }
+
+    fun updateNotes(notes: List<Note>) {
+        MdcWrapper.debugScope(logger, "updating notes in bulk", { mdc(NOTES, notes.size) }) {
+            noteRepository.updateBatch(notes)
+            notes.forEach { noteCache.invalidate(it.id!!) }
+        }
+    }
+
+    fun deleteNotes(ids: List<Long>) {
+        MdcWrapper.debugScope(logger, "deleting notes in bulk", { mdc(NOTES, ids.size) }) {
+            noteRepository.deleteBatch(ids)
+            ids.forEach(noteIds::remove)
+            ids.forEach(noteCache::invalidate)
         }
     }
 
     fun deleteNote(id: Long) {
-        MdcWrapper.debug(logger, "deleting a note").use {
-            noteRepository
-                .findById(id)
-                .map { noteRepository.deleteById(id) }
-                .orElseThrow { NoteNotFoundException() }
+        MdcWrapper.debugScope(logger, "deleting a note", { mdc(ID, id) }) {
+            val deleted = noteRepository.removeById(id)
+            noteIds.remove(id)
+            noteCache.invalidate(id)
+            if (deleted == 0) {
+                throw NoteNotFoundException()
+            }
         }
     }
+
+    private companion object {
+        val ID = MdcKey.of("id")
+        val NOTES = MdcKey.of("notes")
+        val CACHE = MdcKey.of("cache")
+    }
 }
 
-class NoteNotFoundException : RuntimeException("Note not found") {
+class NoteVersionConflictException : RuntimeException("Note was changed concurrently")
+
+class NoteNotFoundException private constructor(
+    writableStackTrace: Boolean,
+) : RuntimeException("Note not found", null, writableStackTrace, writableStackTrace) {
+    constructor() : this(true)
+
     init {
-        LoggerFactory.getLogger(this.javaClass).error(message)
+        if (writableStackTrace) {
+            LoggerFactory.getLogger(this.javaClass).error(message)
+        }
+    }
+
+    companion object {
+        /**
+         * Returns an exception without a stack trace or an ERROR log, for ids the id filter already knows do not
+         * exist.
+         */
+        fun stackless() = NoteNotFoundException(false)
     }
 }
@@ -10,7 +10,8 @@ CREATE TABLE IF NOT EXISTS NOTE
 (
     255
 ) NOT NULL,
-    CONTENT TEXT NOT NULL
+    CONTENT TEXT NOT NULL,
+    VERSION BIGINT DEFAULT 0 NOT NULL
     );
 
 CREATE TABLE IF NOT EXISTS GOAT
@@ -28,6 +29,7 @@ CREATE TABLE IF NOT EXISTS GOAT
     BREED VARCHAR
 (
     255
-) NOT NULL
+) NOT NULL,
+    VERSION BIGINT DEFAULT 0 NOT NULL
     );
 
@@ -0,0 +1,71 @@
+package com.example.mdcwrapper.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for IdFilter.
+ */
+public final class IdFilterTest {
+
+    @Test
+    public void shouldLoadTheExistingIdsOnceOnTheFirstLookup() {
+        final AtomicInteger loads = new AtomicInteger();
+        final IdFilter filter = new IdFilter("test-load", () -> {
+            loads.incrementAndGet();
+            return List.of(1L, 2L, 70_000L);
+        });
+
+        assertThat(filter.mightContain(2)).isTrue();
+        assertThat(filter.mightContain(3)).isFalse();
+        assertThat(filter.mightContain(70_000)).isTrue();
+        assertThat(filter.mightContain(70_001)).isFalse();
+        assertThat(filter.mightContain(0)).isFalse();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void shouldFollowAddsAndRemovesExactly() {
+        final IdFilter filter = new IdFilter("test-exact", List::of);
+        final Set<Long> ids = new HashSet<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            final long id = 1 + random.nextInt(500_000);
+            if (random.nextBoolean()) {
+                filter.add(id);
+                ids.add(id);
+            } else {
+                filter.remove(id);
+                ids.remove(id);
+            }
+        }
+
+        for (long id = 0; id <= 600_000; id++) {
+            assertThat(filter.mightContain(id)).as("id %d", id).isEqualTo(ids.contains(id));
+        }
+        assertThat(filter.stats().ids()).isEqualTo(ids.size());
+    }
+
+    @Test
+    public void shouldReportMemoryAndFalsePositives() {
+        final IdFilter filter = new IdFilter("test-stats", () -> List.of(1L, 1_000_000L));
+
+        filter.mightContain(1);
+        filter.falsePositive();
+        filter.mightContain(2);
+
+        final IdFilter.Stats stats = filter.stats();
+        // two 8 KiB pages plus the index of the 16 pages below the highest id
+        assertThat(stats.memoryBytes()).isEqualTo(2 * 8192 + 16 * 8);
+        assertThat(stats.definiteMisses()).isEqualTo(1);
+        assertThat(stats.falsePositiveRate()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.mdcwrapper.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for TinyLfuCache.
+ */
+public final class TinyLfuCacheTest {
+
+    @Test
+    public void shouldLoadOnceAndCountHitsAndMisses() {
+        final TinyLfuCache<Long, String> cache = new TinyLfuCache<>("test-load", 10);
+        final AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.get(1L, key -> "goat " + loads.incrementAndGet())).isEqualTo("goat 1");
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hits()).isEqualTo(4);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+        assertThat(cache.stats().hitRate()).isEqualTo(0.8);
+    }
+
+    @Test
+    public void shouldNotCacheWhenTheLoaderThrows() {
+        final TinyLfuCache<Long, String> cache = new TinyLfuCache<>("test-throw", 10);
+
+        assertThatThrownBy(() -> cache.get(1L, key -> {
+            throw new IllegalStateException("not found");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    public void shouldDropInvalidatedEntries() {
+        final TinyLfuCache<Long, String> cache = new TinyLfuCache<>("test-invalidate", 10);
+        cache.get(1L, key -> "old");
+
+        cache.invalidate(1L);
+
+        assertThat(cache.get(1L, key -> "new")).isEqualTo("new");
+    }
+
+    @Test
+    public void shouldNotCacheValuesLoadedBeforeAnInvalidation() {
+        final TinyLfuCache<Long, String> cache = new TinyLfuCache<>("test-race", 10);
+
+        cache.load(1L, key -> {
+            cache.invalidate(1L);
+            return "stale";
+        });
+
+        assertThat(cache.getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    public void shouldKeepFrequentEntriesWhileOneOffKeysStreamThrough() {
+        final TinyLfuCache<Long, String> cache = new TinyLfuCache<>("test-scan", 100);
+        long cold = 1_000;
+        for (int round = 0; round < 50; round++) {
+            LongStream.range(0, 100).forEach(key -> cache.get(key, k -> "hot " + k));
+            for (int i = 0; i < 100; i++) {
+                cache.get(cold++, k -> "cold " + k);
+            }
+        }
+
+        assertThat(cache.stats().size()).isEqualTo(100);
+        assertThat(LongStream.range(0, 100).filter(key -> cache.getIfPresent(key) != null).count())
+                .isGreaterThan(90);
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.mdcwrapper.java;
 
+import com.example.mdcwrapper.web.KeysetPage;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -22,7 +25,7 @@ public final class GoatControllerTest {
 
         @Override
         public <S extends Goat> S save(final S entity) {
-            final Goat goat = entity.id() == null ? entity.withId(++idCounter) : entity;
+            final Goat goat = entity.id() == null ? entity.withId(++idCounter).withVersion(0L) : entity;
             goats.put(goat.id(), goat);
             return (S) goat;
         }
@@ -47,6 +50,63 @@ public final class GoatControllerTest {
             return List.copyOf(goats.values());
         }
 
+        @Override
+        public List<Goat> findPageAfter(final long after, final int limit) {
+            return goats.values().stream()
+                    .filter(goat -> goat.id() > after)
+                    .sorted(Comparator.comparing(Goat::id))
+                    .limit(limit)
+                    .toList();
+        }
+
+        @Override
+        public List<Long> findAllIds() {
+            return List.copyOf(goats.keySet());
+        }
+
+        @Override
+        public Long updateById(final long id, final String name, final String breed) {
+            final Goat existing = goats.get(id);
+            if (existing == null) {
+                return null;
+            }
+            final long version = existing.version() == null ? 1 : existing.version() + 1;
+            goats.put(id, new Goat(id, name, breed, version));
+            return version;
+        }
+
+        @Override
+        public Long updateByIdAndVersion(final long id, final String name, final String breed, final long version) {
+            final Goat existing = goats.get(id);
+            return existing != null && Objects.equals(existing.version(), version) ? updateById(id, name, breed) : null;
+        }
+
+        @Override
+        public int removeById(final long id) {
+            return goats.remove(id) != null ? 1 : 0;
+        }
+
+        @Override
+        public List<Long> insertBatch(final List<Goat> batch) {
+            return batch.stream().map(goat -> save(goat).id()).toList();
+        }
+
+        @Override
+        public void updateBatch(final List<Goat> batch) {
+            if (!batch.stream().allMatch(goat -> goats.containsKey(goat.id()))) {
+                throw new GoatNotFoundException();
+            }
+            batch.forEach(this::save);
+        }
+
+        @Override
+        public void deleteBatch(final List<Long> ids) {
+            if (!goats.keySet().containsAll(ids)) {
+                throw new GoatNotFoundException();
+            }
+            ids.forEach(goats::remove);
+        }
+
         @Override
         public Iterable<Goat> findAllById(final Iterable<Long> ids) {
             return List.of();
@@ -113,6 +173,56 @@ public final class GoatControllerTest {
         assertThat(response.getBody()).hasSize(2);
     }
 
+    @Test
+    public void shouldPageThroughGoatsWithACursor() {
+        final MockGoatRepository repository = new MockGoatRepository();
+        final GoatService service = new GoatService(repository);
+        final GoatController controller = new GoatController(service);
+        controller.createGoat(new Goat(null, "Goat 1", "Nubian"));
+        controller.createGoat(new Goat(null, "Goat 2", "Boer"));
+        controller.createGoat(new Goat(null, "Goat 3", "Alpine"));
+
+        final KeysetPage<Goat> first = controller.getGoats(null, 2).getBody();
+        final KeysetPage<Goat> second = controller.getGoats(first.nextCursor(), 2).getBody();
+
+        assertThat(first.items()).extracting(Goat::name).containsExactly("Goat 1", "Goat 2");
+        assertThat(first.nextCursor()).isNotNull();
+        assertThat(second.items()).extracting(Goat::name).containsExactly("Goat 3");
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    public void shouldRejectAMalformedCursor() {
+        final GoatController controller = new GoatController(new GoatService(new MockGoatRepository()));
+
+        assertThatThrownBy(() -> controller.getGoats("not a cursor!", null))
+                .isInstanceOf(KeysetPage.InvalidCursorException.class);
+    }
+
+    @Test
+    public void shouldRejectALimitBelowOne() {
+        final GoatController controller = new GoatController(new GoatService(new MockGoatRepository()));
+
+        assertThatThrownBy(() -> controller.getGoats(null, 0))
+                .isInstanceOf(KeysetPage.InvalidLimitException.class)
+                .hasMessage("limit must be positive");
+    }
+
+    @Test
+    public void shouldCreateUpdateAndDeleteGoatsInBulk() {
+        final GoatController controller = new GoatController(new GoatService(new MockGoatRepository()));
+
+        final var created = controller.createGoats(List.of(new Goat(null, "Goat 1", "Nubian"),
+                new Goat(null, "Goat 2", "Boer")));
+        controller.updateGoats(List.of(new Goat(2L, "Goat 2", "Alpine")));
+        final var deleted = controller.deleteGoats(List.of(1L));
+
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(created.getBody()).containsExactly(1L, 2L);
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(controller.getAllGoats().getBody()).containsExactly(new Goat(2L, "Goat 2", "Alpine"));
+    }
+
     @Test
     public void shouldGetGoatById() {
         final MockGoatRepository repository = new MockGoatRepository();
@@ -153,6 +263,19 @@ public final class GoatControllerTest {
         assertThat(response.getBody().breed()).isEqualTo("Updated Breed");
     }
 
+    @Test
+    public void shouldRejectAnUpdateWithAStaleVersion() {
+        final GoatController controller = new GoatController(new GoatService(new MockGoatRepository()));
+        final Goat created = controller.createGoat(new Goat(null, "Original", "Boer")).getBody();
+
+        final Goat updated = controller.updateGoat(created.id(), new Goat(null, "First", "Boer", 0L)).getBody();
+
+        assertThat(updated.version()).isEqualTo(1L);
+        assertThatThrownBy(() -> controller.updateGoat(created.id(), new Goat(null, "Second", "Boer", 0L)))
+                .isInstanceOf(GoatVersionConflictException.class);
+        assertThat(controller.getGoatById(created.id()).getBody().name()).isEqualTo("First");
+    }
+
     @Test
     public void shouldThrowExceptionWhenUpdatingNonExistentGoat() {
         final MockGoatRepository repository = new MockGoatRepository();
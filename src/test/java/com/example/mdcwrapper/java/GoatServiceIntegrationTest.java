@@ -1,10 +1,17 @@
 package com.example.mdcwrapper.java;
 
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.example.mdcwrapper.MdcwrapperApplication;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -20,6 +27,9 @@ public final class GoatServiceIntegrationTest {
     @Autowired
     private GoatRepository goatRepository;
 
+    @Autowired
+    private GoatExportController goatExportController;
+
     @Test
     public void shouldAddGoatInDatabase() {
         final Goat goat = new Goat(null, "Billy", "Alpine");
@@ -31,6 +41,15 @@ public final class GoatServiceIntegrationTest {
         assertThat(savedGoat.breed()).isEqualTo("Alpine");
     }
 
+    @Test
+    public void shouldAddAGoatSentWithAnIdAndVersion() {
+        final Goat savedGoat = goatService.addGoat(new Goat(12_345L, "Billy", "Alpine", 3L));
+
+        assertThat(savedGoat.id()).isNotNull().isNotEqualTo(12_345L);
+        assertThat(savedGoat.version()).isZero();
+        assertThat(goatService.getGoatById(savedGoat.id()).name()).isEqualTo("Billy");
+    }
+
     @Test
     public void shouldGetAllGoatsFromDatabase() {
         goatRepository.deleteAll();
@@ -42,6 +61,41 @@ public final class GoatServiceIntegrationTest {
         assertThat(goats).hasSize(2);
     }
 
+    @Test
+    public void shouldExportGoatsAsOneJsonLineEach() throws Exception {
+        goatRepository.deleteAll();
+        goatService.addGoat(new Goat(null, "Goat 1", "Nubian"));
+        goatService.addGoat(new Goat(null, "Goat 2", "Boer"));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        goatExportController.exportGoats().getBody().writeTo(out);
+
+        final String[] lines = out.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"name\":\"Goat 1\"", "\"breed\":\"Nubian\"");
+        assertThat(lines[1]).contains("\"name\":\"Goat 2\"");
+    }
+
+    @Test
+    public void shouldAddGoatsInOneBatchAndReturnTheirIds() {
+        final List<Long> ids = goatService.addGoats(List.of(new Goat(null, "Bulk 1", "Nubian"),
+                new Goat(null, "Bulk 2", "Boer"), new Goat(null, "Bulk 3", "Alpine")));
+
+        assertThat(ids).hasSize(3).doesNotContainNull();
+        assertThat(goatService.getGoatById(ids.get(2)).name()).isEqualTo("Bulk 3");
+    }
+
+    @Test
+    public void shouldRollBackABulkUpdateWhenOneGoatDoesNotExist() {
+        final Goat saved = goatService.addGoat(new Goat(null, "Before", "Boer"));
+
+        assertThatThrownBy(() -> goatService.updateGoats(List.of(new Goat(saved.id(), "After", "Boer"),
+                new Goat(99999L, "Missing", "Boer"))))
+                .isInstanceOf(GoatNotFoundException.class);
+
+        assertThat(goatService.getGoatById(saved.id()).name()).isEqualTo("Before");
+    }
+
     @Test
     public void shouldGetGoatByIdFromDatabase() {
         final Goat saved = goatService.addGoat(new Goat(null, "FindMe", "LaMancha"));
@@ -53,6 +107,30 @@ public final class GoatServiceIntegrationTest {
         assertThat(found.breed()).isEqualTo("LaMancha");
     }
 
+    @Test
+    public void shouldLogTheIdOfTheGoatItTouches() {
+        final Goat saved = goatService.addGoat(new Goat(null, "Logged", "Boer"));
+        final Logger logger = (Logger) LoggerFactory.getLogger(GoatService.class);
+        final ListAppender<ILoggingEvent> listAppender = new ListAppender<>();
+        listAppender.start();
+        logger.addAppender(listAppender);
+        try {
+            goatService.getGoatById(saved.id());
+            goatService.updateGoat(saved.id(), new Goat(null, "Logged", "Alpine"));
+            goatService.deleteGoat(saved.id());
+        } finally {
+            logger.detachAppender(listAppender);
+        }
+
+        assertThat(listAppender.list)
+                .filteredOn(event -> event.getFormattedMessage().startsWith("Finished"))
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("Finished getting a goat", "Finished updating a goat", "Finished deleting a goat");
+        assertThat(listAppender.list)
+                .filteredOn(event -> event.getFormattedMessage().startsWith("Finished"))
+                .allSatisfy(event -> assertThat(event.getMDCPropertyMap()).containsEntry("id", "" + saved.id()));
+    }
+
     @Test
     public void shouldThrowExceptionWhenGoatNotFound() {
         assertThatThrownBy(() -> goatService.getGoatById(99999L))
@@ -68,9 +146,11 @@ public final class GoatServiceIntegrationTest {
         assertThat(updated).isNotNull();
         assertThat(updated.name()).isEqualTo("Updated");
         assertThat(updated.breed()).isEqualTo("Updated Breed");
+        assertThat(updated.version()).isEqualTo(saved.version() + 1);
 
         final Goat found = goatService.getGoatById(saved.id());
         assertThat(found.name()).isEqualTo("Updated");
+        assertThat(found.version()).isEqualTo(updated.version());
     }
 
     @Test
@@ -79,6 +159,17 @@ public final class GoatServiceIntegrationTest {
                 .isInstanceOf(GoatNotFoundException.class);
     }
 
+    @Test
+    public void shouldRejectAnUpdateWithAStaleVersion() {
+        final Goat saved = goatService.addGoat(new Goat(null, "Versioned", "Boer"));
+
+        goatService.updateGoat(saved.id(), new Goat(null, "First", "Boer", saved.version()));
+
+        assertThatThrownBy(() -> goatService.updateGoat(saved.id(), new Goat(null, "Second", "Boer", saved.version())))
+                .isInstanceOf(GoatVersionConflictException.class);
+        assertThat(goatService.getGoatById(saved.id()).name()).isEqualTo("First");
+    }
+
     @Test
     public void shouldDeleteGoatFromDatabase() {
         final Goat saved = goatService.addGoat(new Goat(null, "DeleteMe", "Delete Breed"));
@@ -0,0 +1,121 @@
+package com.example.mdcwrapper.java;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.mdcwrapper.metrics.ActionMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for MdcScopeAdvisor.
+ */
+public final class MdcScopeAdvisorTest {
+
+    private static final Logger logger = (Logger) LoggerFactory.getLogger(Herd.class);
+    private ListAppender<ILoggingEvent> listAppender;
+    private Herd herd;
+
+    @BeforeEach
+    void setup() {
+        listAppender = new ListAppender<>();
+        listAppender.start();
+        logger.addAppender(listAppender);
+        logger.setLevel(Level.DEBUG);
+        final ProxyFactory factory = new ProxyFactory(new Herd());
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new MdcScopeAdvisor());
+        herd = (Herd) factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(listAppender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    public void shouldPutTheBoundArgumentsBeforeTheStartedLine() {
+        final Goat billy = new Goat(null, "Billy", "Boer");
+        final String goats = herd.count(List.of(billy, new Goat(null, "Nanny", "Alpine")), 7L, billy);
+
+        assertThat(goats).isEqualTo("2");
+        assertThat(MDC.get("goats")).isNull();
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("Started counting a herd", "Finished counting a herd");
+        assertThat(logs.get(0).getMDCPropertyMap())
+                .containsEntry("goats", "2")
+                .containsEntry("id", "7")
+                .containsEntry("name", "Billy");
+    }
+
+    @Test
+    public void shouldLeaveOutKeysWhoseArgumentIsNull() {
+        herd.count(List.of(), null, null);
+
+        assertThat(listAppender.list.get(0).getMDCPropertyMap())
+                .containsEntry("goats", "0")
+                .doesNotContainKeys("id", "name");
+    }
+
+    @Test
+    public void shouldCallTheMethodWithoutAScopeWhenTheLevelIsDisabled() {
+        logger.setLevel(Level.INFO);
+
+        final String goats = herd.count(List.of(), 7L, null);
+
+        assertThat(goats).isNull();
+        assertThat(listAppender.list).isEmpty();
+    }
+
+    @Test
+    public void shouldMarkTheScopeAsFailedWhenTheMethodThrows() {
+        assertThatThrownBy(() -> herd.lose()).isInstanceOf(IllegalStateException.class);
+
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs.get(1).getFormattedMessage()).isEqualTo("Finished losing a goat");
+        assertThat(logs.get(1).getMDCPropertyMap()).containsEntry("error", "IllegalStateException");
+        assertThat(ActionMetrics.global().errors("losing a goat")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRejectABindingToAMissingParameterWhenTheProxyIsCreated() throws NoSuchMethodException {
+        final MdcScopeAdvisor advisor = new MdcScopeAdvisor();
+
+        assertThatThrownBy(() -> advisor.matches(Herd.class.getMethod("misnamed", Long.class), Herd.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("'goat'");
+    }
+
+    /**
+     * Target of the proxies; the advisor logs through the logger of this class.
+     */
+    public static class Herd {
+
+        @MdcScope(action = "counting a herd", level = org.slf4j.event.Level.DEBUG,
+                keys = {"goats=goats.size", "id", "name=goat.name"})
+        public String count(final List<Goat> goats, final Long id, final Goat goat) {
+            return MDC.get("goats");
+        }
+
+        @MdcScope(action = "losing a goat")
+        public void lose() {
+            throw new IllegalStateException("gone");
+        }
+
+        @MdcScope(action = "misnaming a goat", keys = "goat")
+        public void misnamed(final Long id) {
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.example.mdcwrapper.java;
 
+import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import com.example.mdcwrapper.logging.ScopeLogPolicy;
+import com.example.mdcwrapper.metrics.ActionMetrics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Tests for Java MdcWrapper.
@@ -32,6 +41,7 @@ public final class MdcWrapperTest {
     @AfterEach
     void tearDown() {
         logger.detachAppender(listAppender);
+        ScopeLogPolicy.reset();
     }
 
     @Test
@@ -131,5 +141,203 @@ public final class MdcWrapperTest {
         assertThat(logs.get(5).getMDCPropertyMap()).containsEntry("outerKey", "outerValue");
         assertThat(logs.get(5).getMDCPropertyMap()).doesNotContainKey("innerKey");
     }
-}
 
+    @Test
+    public void shouldSkipMdcAndLogsWhenLevelIsDisabled() {
+        logger.setLevel(Level.INFO);
+        try (final MdcWrapper wrapper = MdcWrapper.debug(logger, "disabled action", Map.of("key1", "value1"))) {
+            wrapper.put("key2", "value2");
+
+            assertThat(MDC.get("key1")).isNull();
+            assertThat(MDC.get("key2")).isNull();
+        } finally {
+            logger.setLevel(null);
+        }
+
+        assertThat(listAppender.list).isEmpty();
+    }
+
+    @Test
+    public void shouldPutMdcWithoutLoggingWhenModeIsAlways() {
+        logger.setLevel(Level.INFO);
+        try (final MdcWrapper wrapper = MdcWrapper.debug(logger, "quiet action", Map.of("key1", "value1"),
+                MdcWrapper.MdcMode.ALWAYS)) {
+            wrapper.put("key2", "value2");
+            logger.info("Message in quiet wrapper");
+
+            assertThat(MDC.get("key1")).isEqualTo("value1");
+            assertThat(MDC.get("key2")).isEqualTo("value2");
+        } finally {
+            logger.setLevel(null);
+        }
+
+        assertThat(MDC.get("key1")).isNull();
+        assertThat(MDC.get("key2")).isNull();
+        assertThat(listAppender.list).hasSize(1);
+        assertThat(listAppender.list.get(0).getMDCPropertyMap()).containsEntry("key2", "value2");
+    }
+
+    @Test
+    public void shouldNotAllocateWhenLevelIsDisabled() {
+        final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final int iterations = 100_000;
+        logger.setLevel(Level.INFO);
+        try {
+            for (int i = 0; i < iterations; i++) {
+                openDisabledScope();
+            }
+
+            final long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < iterations; i++) {
+                openDisabledScope();
+            }
+            final long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+            // allow for a stray allocation by the measurement itself, not one per scope
+            assertThat(allocated).as("bytes allocated by %d disabled scopes", iterations).isLessThan(1024);
+        } finally {
+            logger.setLevel(null);
+        }
+    }
+
+    private static void openDisabledScope() {
+        try (final MdcWrapper wrapper = MdcWrapper.debug(logger, "disabled action")) {
+            wrapper.put("key", "value");
+        }
+    }
+
+    @Test
+    public void shouldBindEntriesThroughScopedValue() throws Exception {
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() ->
+                    MdcWrapper.run(logger, "scoped action", Map.of("outerKey", "outerValue"), () -> {
+                        assertThat(MDC.get("outerKey")).isEqualTo("outerValue");
+
+                        MdcWrapper.run(logger, "inner scoped action", Map.of("innerKey", "innerValue"), () -> {
+                            assertThat(MDC.get("outerKey")).isEqualTo("outerValue");
+                            logger.info("Message in inner scope");
+                        });
+
+                        assertThat(MDC.get("innerKey")).isNull();
+                    })).get();
+        }
+
+        assertThat(MDC.get("outerKey")).isNull();
+
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs).extracting(ILoggingEvent::getFormattedMessage).containsExactly(
+                "Started scoped action",
+                "Started inner scoped action",
+                "Message in inner scope",
+                "Finished inner scoped action",
+                "Finished scoped action");
+        assertThat(logs.get(2).getMDCPropertyMap())
+                .containsEntry("outerKey", "outerValue")
+                .containsEntry("innerKey", "innerValue");
+        assertThat(logs.get(4).getMDCPropertyMap()).doesNotContainKey("innerKey");
+    }
+
+    @Test
+    public void shouldIsolateScopesBetweenVirtualThreadsSharingCarriers() throws Exception {
+        final int tasks = 10_000;
+        logger.setLevel(Level.WARN);
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int task = 0; task < tasks; task++) {
+                final String id = Integer.toString(task);
+                results.add(executor.submit(() -> {
+                    try (final MdcWrapper ignored = MdcWrapper.info(logger, "isolated action", Map.of("id", id),
+                            MdcWrapper.MdcMode.ALWAYS)) {
+                        // unmount so the continuation may resume on another carrier
+                        Thread.sleep(1);
+                        if (!id.equals(MDC.get("id"))) {
+                            return "task " + id + " saw id " + MDC.get("id");
+                        }
+                    }
+                    return MDC.get("id") == null ? null : "task " + id + " leaked id " + MDC.get("id");
+                }));
+            }
+            for (final Future<String> result : results) {
+                assertThat(result.get()).isNull();
+            }
+        } finally {
+            logger.setLevel(null);
+        }
+    }
+
+    @Test
+    public void shouldReportElapsedTimeOnTheFinishedLine() {
+        try (final MdcWrapper ignored = MdcWrapper.info(logger, "timed action")) {
+            logger.info("Message in timed wrapper");
+        }
+
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs.get(0).getMDCPropertyMap()).doesNotContainKey("elapsedMicros");
+        assertThat(logs.get(1).getMDCPropertyMap()).doesNotContainKey("elapsedMicros");
+        assertThat(logs.get(2).getFormattedMessage()).isEqualTo("Finished timed action");
+        assertThat(logs.get(2).getMDCPropertyMap()).containsKey("elapsedMicros");
+        assertThat(MDC.get("elapsedMicros")).isNull();
+        assertThat(ActionMetrics.global().histogram("timed action").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCountFailedScopesAsErrors() {
+        assertThatThrownBy(() -> {
+            try (final MdcWrapper mdc = MdcWrapper.info(logger, "failing action")) {
+                throw mdc.failed(new IllegalStateException("boom"));
+            }
+        }).isInstanceOf(IllegalStateException.class);
+
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs.get(1).getFormattedMessage()).isEqualTo("Finished failing action");
+        assertThat(logs.get(1).getMDCPropertyMap()).containsEntry("error", "IllegalStateException");
+        assertThat(MDC.get("error")).isNull();
+        assertThat(ActionMetrics.global().errors("failing action")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCountUnexpectedFailuresOfAScopeRunByUse() {
+        assertThatThrownBy(() -> MdcWrapper.info(logger, "unexpectedly failing action").use(mdc -> {
+            mdc.put("id", "1");
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        final String result = MdcWrapper.info(logger, "succeeding action").use(mdc -> "done");
+
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs.get(1).getFormattedMessage()).isEqualTo("Finished unexpectedly failing action");
+        assertThat(logs.get(1).getMDCPropertyMap()).containsEntry("error", "IllegalStateException");
+        assertThat(MDC.get("id")).isNull();
+        assertThat(ActionMetrics.global().errors("unexpectedly failing action")).isEqualTo(1);
+        assertThat(result).isEqualTo("done");
+        assertThat(ActionMetrics.global().errors("succeeding action")).isZero();
+    }
+
+    @Test
+    public void shouldKeepMdcAndMetricsForScopesThatAreNotSampled() {
+        ScopeLogPolicy.configure("quiet action", 1, 1, 1);
+        try (final MdcWrapper ignored = MdcWrapper.info(logger, "quiet action")) {
+            logger.info("Message in first scope");
+        }
+        try (final MdcWrapper ignored = MdcWrapper.info(logger, "quiet action", Map.of("key", "value"))) {
+            logger.info("Message in second scope");
+        }
+
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs).extracting(ILoggingEvent::getFormattedMessage).containsExactly(
+                "Started quiet action", "Message in first scope", "Finished quiet action", "Message in second scope");
+        assertThat(logs.get(3).getMDCPropertyMap()).containsEntry("key", "value");
+        assertThat(ActionMetrics.global().histogram("quiet action").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldAlwaysLogFinishedForFailedScopes() {
+        ScopeLogPolicy.configure("rarely logged action", 1_000_000, 0, 1);
+        try (final MdcWrapper mdc = MdcWrapper.info(logger, "rarely logged action")) {
+            mdc.failed(new IllegalStateException("boom"));
+        }
+
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs).extracting(ILoggingEvent::getFormattedMessage).containsExactly("Finished rarely logged action");
+        assertThat(logs.get(0).getMDCPropertyMap()).containsEntry("error", "IllegalStateException");
+    }
+}
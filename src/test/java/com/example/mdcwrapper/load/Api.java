@@ -0,0 +1,26 @@
+package com.example.mdcwrapper.load;
+
+/**
+ * REST APIs the load harness drives, with the JSON body used to create and update an entity.
+ */
+public enum Api {
+
+    GOATS("/api/goats", "{\"name\":\"Goat %d\",\"breed\":\"Boer\"}"),
+    NOTES("/api/notes", "{\"title\":\"Note %d\",\"content\":\"Text\"}");
+
+    private final String path;
+    private final String bodyFormat;
+
+    Api(final String path, final String bodyFormat) {
+        this.path = path;
+        this.bodyFormat = bodyFormat;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public String body(final long number) {
+        return bodyFormat.formatted(number);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.mdcwrapper.load;
+
+import ch.qos.logback.classic.LoggerContext;
+import com.example.mdcwrapper.logging.RingBufferAsyncAppender;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the synchronous console appender, logback's AsyncAppender and RingBufferAsyncAppender while the goat
+ * endpoints log every MdcWrapper scope at DEBUG.
+ * <p>
+ * Run with {@code ./gradlew loadTest}.
+ */
+@Tag("load")
+public final class AppenderLoadTest {
+
+    private static final String APPENDER_PROPERTY = "mdcwrapper.log.appender";
+    private static final LoadProfile PROFILE =
+            new LoadProfile(200, Duration.ofSeconds(3), Duration.ofSeconds(10), LoadProfile.Mix.CRUD);
+
+    @Test
+    public void shouldCompareAppenders() throws Exception {
+        final List<String> report = new ArrayList<>();
+        try {
+            for (final String appender : List.of("CONSOLE", "ASYNC", "RING")) {
+                System.setProperty(APPENDER_PROPERTY, appender);
+                try (final ConfigurableApplicationContext context =
+                             LoadHarness.start("appender-" + appender, "logging.level.com.example=DEBUG")) {
+                    final LoadReport result = LoadHarness.run(LoadHarness.baseUrl(context), Api.GOATS, PROFILE);
+                    report.add("%-8s %s  dropped %d".formatted(appender, result, dropped()));
+                    assertThat(result.errors()).as("failed requests").isZero();
+                }
+            }
+        } finally {
+            System.clearProperty(APPENDER_PROPERTY);
+        }
+        report.forEach(System.err::println);
+    }
+
+    private static long dropped() {
+        final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        return context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).getAppender("RING")
+                instanceof RingBufferAsyncAppender ring ? ring.getDroppedCount() : 0;
+    }
+}
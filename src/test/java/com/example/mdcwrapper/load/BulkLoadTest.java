@@ -0,0 +1,97 @@
+package com.example.mdcwrapper.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the rows per second created with one {@code POST} per entity against {@code POST .../bulk} with
+ * {@code load.bulkSize} entities (100 by default) per request.
+ * <p>
+ * Run with {@code ./gradlew loadTest --tests '*BulkLoadTest'}.
+ */
+@Tag("load")
+public final class BulkLoadTest {
+
+    private static final LoadProfile DEFAULTS =
+            new LoadProfile(16, Duration.ofSeconds(3), Duration.ofSeconds(10), LoadProfile.Mix.CRUD);
+
+    @Test
+    public void shouldCompareSingleAndBulkInserts() throws Exception {
+        final LoadProfile profile = LoadProfile.fromSystemProperties(DEFAULTS);
+        final int bulkSize = Integer.getInteger("load.bulkSize", 100);
+        final List<String> report = new ArrayList<>();
+        try (final ConfigurableApplicationContext context =
+                     LoadHarness.start("bulk", "logging.level.com.example=INFO")) {
+            final String baseUrl = LoadHarness.baseUrl(context);
+            for (final Api api : Api.values()) {
+                for (final int size : new int[]{1, bulkSize}) {
+                    insert(baseUrl, api, size, profile.concurrency(), profile.warmup());
+                    final long rows = insert(baseUrl, api, size, profile.concurrency(), profile.duration());
+                    report.add("%-11s %-5s %,12.0f rows/s".formatted(api.path(), size == 1 ? "one" : "bulk",
+                            rows / (profile.duration().toNanos() / 1e9)));
+                    assertThat(rows).as("rows created").isPositive();
+                }
+            }
+        }
+        System.out.printf("concurrency=%d, bulkSize=%d%n", profile.concurrency(), bulkSize);
+        report.forEach(System.out::println);
+    }
+
+    private static long insert(final String baseUrl, final Api api, final int size, final int concurrency,
+                               final Duration duration) throws Exception {
+        final HttpRequest request = size == 1
+                ? post(baseUrl + api.path(), api.body(0))
+                : post(baseUrl + api.path() + "/bulk", LongStream.range(0, size)
+                        .mapToObj(api::body)
+                        .collect(Collectors.joining(",", "[", "]")));
+        final long deadline = System.nanoTime() + duration.toNanos();
+        final List<Future<Long>> clients = new ArrayList<>();
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             final HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(executor)
+                     .build()) {
+            for (int index = 0; index < concurrency; index++) {
+                clients.add(executor.submit(() -> {
+                    long rows = 0;
+                    while (System.nanoTime() < deadline) {
+                        final HttpResponse<Void> response =
+                                client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 201) {
+                            rows += size;
+                        }
+                    }
+                    return rows;
+                }));
+            }
+            long rows = 0;
+            for (final Future<Long> future : clients) {
+                rows += future.get();
+            }
+            return rows;
+        }
+    }
+
+    private static HttpRequest post(final String url, final String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
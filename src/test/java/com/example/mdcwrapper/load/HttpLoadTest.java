@@ -0,0 +1,41 @@
+package com.example.mdcwrapper.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a CRUD mix against the goats and notes APIs, tunable through the {@code load.*} system properties of
+ * {@link LoadProfile}; extra application properties can be passed as {@code -Dload.app=key=value;key=value}.
+ * <p>
+ * Run with {@code ./gradlew loadTest --tests '*HttpLoadTest'}.
+ */
+@Tag("load")
+public final class HttpLoadTest {
+
+    private static final LoadProfile DEFAULTS =
+            new LoadProfile(100, Duration.ofSeconds(3), Duration.ofSeconds(10), LoadProfile.Mix.CRUD);
+
+    @Test
+    public void shouldReportLoadPerApi() throws Exception {
+        final LoadProfile profile = LoadProfile.fromSystemProperties(DEFAULTS);
+        final String app = System.getProperty("load.app", "");
+        final List<String> report = new ArrayList<>();
+        try (final ConfigurableApplicationContext context =
+                     LoadHarness.start("http", app.isBlank() ? new String[0] : app.split(";"))) {
+            for (final Api api : Api.values()) {
+                final LoadReport result = LoadHarness.run(LoadHarness.baseUrl(context), api, profile);
+                report.add("%-11s %s".formatted(api.path(), result));
+                assertThat(result.errors()).as("failed requests").isZero();
+            }
+        }
+        System.out.println(profile);
+        report.forEach(System.out::println);
+    }
+}
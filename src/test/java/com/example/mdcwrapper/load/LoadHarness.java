@@ -0,0 +1,237 @@
+package com.example.mdcwrapper.load;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import com.example.mdcwrapper.MdcwrapperApplication;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process HTTP load generator for the goats and notes APIs.
+ * <p>
+ * {@link #start} boots the application on a random port with its own H2 database, and {@link #run} seeds an API,
+ * warms it up and then measures it with a {@link LoadProfile}. Log lines are counted with an appender on the root
+ * logger, so reports of different logging configurations can be compared.
+ */
+public final class LoadHarness {
+
+    private static final int SEED_ROWS = 50;
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private LoadHarness() {
+    }
+
+    /**
+     * Boots the application; {@code properties} override the harness defaults.
+     */
+    public static ConfigurableApplicationContext start(final String name, final String... properties) {
+        final List<String> all = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:load-" + name));
+        all.addAll(List.of(properties));
+        return new SpringApplicationBuilder(MdcwrapperApplication.class)
+                .properties(all.toArray(String[]::new))
+                .run();
+    }
+
+    public static String baseUrl(final ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    public static LoadReport run(final String baseUrl, final Api api, final LoadProfile profile) throws Exception {
+        final long[] seeded = seed(baseUrl, api);
+        measure(baseUrl, api, profile, profile.warmup(), seeded);
+        final LineCounter lines = LineCounter.attach();
+        try {
+            return measure(baseUrl, api, profile, profile.duration(), seeded).withLogLines(lines.count());
+        } finally {
+            lines.detach();
+        }
+    }
+
+    private static long[] seed(final String baseUrl, final Api api) throws Exception {
+        final long[] ids = new long[SEED_ROWS];
+        try (final HttpClient client = HttpClient.newHttpClient()) {
+            for (int row = 0; row < SEED_ROWS; row++) {
+                final HttpResponse<String> response =
+                        client.send(post(baseUrl + api.path(), api.body(row)), HttpResponse.BodyHandlers.ofString());
+                ids[row] = id(response.body());
+            }
+        }
+        return ids;
+    }
+
+    private static Measurement measure(final String baseUrl, final Api api, final LoadProfile profile,
+                                       final Duration duration, final long[] seeded) throws Exception {
+        final AtomicLong errors = new AtomicLong();
+        final long deadline = System.nanoTime() + duration.toNanos();
+        final List<Future<long[]>> clients = new ArrayList<>();
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             final HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(executor)
+                     .build()) {
+            for (int index = 0; index < profile.concurrency(); index++) {
+                clients.add(executor.submit(() -> {
+                    final Client worker = new Client(client, baseUrl + api.path(), api, profile.mix(), seeded);
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        final long start = System.nanoTime();
+                        if (!worker.next()) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            final List<long[]> perClient = new ArrayList<>();
+            for (final Future<long[]> future : clients) {
+                perClient.add(future.get());
+            }
+            return new Measurement(perClient, duration, errors.get());
+        }
+    }
+
+    private static HttpRequest post(final String url, final String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static long id(final String json) {
+        final Matcher matcher = ID.matcher(json);
+        if (!matcher.find()) {
+            throw new IllegalStateException("no id in response: " + json);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private record Measurement(List<long[]> perClient, Duration duration, long errors) {
+
+        LoadReport withLogLines(final long logLines) {
+            return LoadReport.of(perClient, duration, errors, logLines);
+        }
+    }
+
+    /**
+     * One simulated user; reads and updates hit the seeded entities, deletes only the user's own.
+     */
+    private static final class Client {
+
+        private final HttpClient client;
+        private final String url;
+        private final Api api;
+        private final LoadProfile.Mix mix;
+        private final long[] seeded;
+        private final List<Long> created = new ArrayList<>();
+
+        Client(final HttpClient client, final String url, final Api api, final LoadProfile.Mix mix,
+               final long[] seeded) {
+            this.client = client;
+            this.url = url;
+            this.api = api;
+            this.mix = mix;
+            this.seeded = seeded;
+        }
+
+        boolean next() throws Exception {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int pick = random.nextInt(mix.total());
+            // the mix's weights laid end to end: pick falls into create, read, list, update or delete
+            final int createEnd = mix.create();
+            final int readEnd = createEnd + mix.read();
+            final int listEnd = readEnd + mix.list();
+            final int updateEnd = listEnd + mix.update();
+            if (pick < createEnd || pick >= updateEnd && created.isEmpty()) {
+                final HttpResponse<String> response = client.send(post(url, api.body(random.nextLong(1_000_000))),
+                        HttpResponse.BodyHandlers.ofString());
+                if (!ok(response)) {
+                    return false;
+                }
+                created.add(id(response.body()));
+                return true;
+            }
+            final HttpRequest request;
+            if (pick < readEnd) {
+                request = HttpRequest.newBuilder(URI.create(url + "/" + anySeeded(random))).GET().build();
+            } else if (pick < listEnd) {
+                request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+            } else if (pick < updateEnd) {
+                request = HttpRequest.newBuilder(URI.create(url + "/" + anySeeded(random)))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(api.body(random.nextLong(1_000_000))))
+                        .build();
+            } else {
+                request = HttpRequest.newBuilder(URI.create(url + "/" + created.removeLast())).DELETE().build();
+            }
+            return ok(client.send(request, HttpResponse.BodyHandlers.discarding()));
+        }
+
+        private long anySeeded(final ThreadLocalRandom random) {
+            return seeded[random.nextInt(seeded.length)];
+        }
+
+        private static boolean ok(final HttpResponse<?> response) {
+            return response.statusCode() / 100 == 2;
+        }
+    }
+
+    /**
+     * Counts the events that reach the root logger's appenders while attached.
+     */
+    private static final class LineCounter extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+        private final LongAdder lines = new LongAdder();
+
+        static LineCounter attach() {
+            final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            final LineCounter counter = new LineCounter();
+            counter.setContext(context);
+            counter.setName("load-line-counter");
+            counter.start();
+            context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(counter);
+            return counter;
+        }
+
+        @Override
+        protected void append(final ILoggingEvent event) {
+            lines.increment();
+        }
+
+        long count() {
+            return lines.sum();
+        }
+
+        void detach() {
+            final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            context.getLogger(Logger.ROOT_LOGGER_NAME).detachAppender(this);
+            stop();
+        }
+    }
+}
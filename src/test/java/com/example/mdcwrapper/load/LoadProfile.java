@@ -0,0 +1,80 @@
+package com.example.mdcwrapper.load;
+
+import java.time.Duration;
+
+/**
+ * How hard and with which requests the load harness drives an API.
+ * <p>
+ * {@link #fromSystemProperties(LoadProfile)} lets a run be tuned without code changes, e.g.
+ * {@code ./gradlew loadTest -Dload.concurrency=500 -Dload.duration=30s -Dload.mix=read=8,update=1,create=1}.
+ *
+ * @param concurrency number of clients sending requests back to back
+ * @param warmup      time spent sending requests before measuring
+ * @param duration    time spent measuring
+ * @param mix         relative weight of each kind of request
+ */
+public record LoadProfile(int concurrency, Duration warmup, Duration duration, Mix mix) {
+
+    public LoadProfile withMix(final Mix newMix) {
+        return new LoadProfile(concurrency, warmup, duration, newMix);
+    }
+
+    public static LoadProfile fromSystemProperties(final LoadProfile defaults) {
+        return new LoadProfile(
+                Integer.getInteger("load.concurrency", defaults.concurrency()),
+                duration("load.warmup", defaults.warmup()),
+                duration("load.duration", defaults.duration()),
+                System.getProperty("load.mix") == null ? defaults.mix() : Mix.parse(System.getProperty("load.mix")));
+    }
+
+    private static Duration duration(final String property, final Duration defaultValue) {
+        final String value = System.getProperty(property);
+        return value == null ? defaultValue : Duration.parse("PT" + value.toUpperCase());
+    }
+
+    /**
+     * Relative weights of the requests: create (POST), read (GET by id), list (GET all), update (PUT) and
+     * delete (DELETE). Clients only delete entities they created themselves.
+     */
+    public record Mix(int create, int read, int list, int update, int delete) {
+
+        public static final Mix LIST_ONLY = new Mix(0, 0, 1, 0, 0);
+        public static final Mix CRUD = new Mix(1, 6, 1, 1, 1);
+
+        public Mix {
+            if (create < 0 || read < 0 || list < 0 || update < 0 || delete < 0
+                    || create + read + list + update + delete == 0) {
+                throw new IllegalArgumentException("invalid request mix");
+            }
+        }
+
+        /**
+         * Parses {@code create=1,read=6,list=1,update=1,delete=1}; missing kinds get weight 0.
+         */
+        public static Mix parse(final String text) {
+            final int[] weights = new int[5];
+            for (final String part : text.split(",")) {
+                final String[] pair = part.trim().split("=");
+                final int weight = Integer.parseInt(pair[1].trim());
+                switch (pair[0].trim()) {
+                    case "create" -> weights[0] = weight;
+                    case "read" -> weights[1] = weight;
+                    case "list" -> weights[2] = weight;
+                    case "update" -> weights[3] = weight;
+                    case "delete" -> weights[4] = weight;
+                    default -> throw new IllegalArgumentException("unknown request kind: " + pair[0]);
+                }
+            }
+            return new Mix(weights[0], weights[1], weights[2], weights[3], weights[4]);
+        }
+
+        int total() {
+            return create + read + list + update + delete;
+        }
+
+        @Override
+        public String toString() {
+            return "create=%d,read=%d,list=%d,update=%d,delete=%d".formatted(create, read, list, update, delete);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.mdcwrapper.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Outcome of one measured load run.
+ */
+public record LoadReport(long requests, double throughput, double p50Millis, double p90Millis, double p99Millis,
+                         double maxMillis, long errors, double logLinesPerRequest) {
+
+    static LoadReport of(final List<long[]> perClient, final Duration duration, final long errors,
+                         final long logLines) {
+        final long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new LoadReport(all.length, all.length / (duration.toMillis() / 1000.0),
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0), errors,
+                all.length == 0 ? 0 : (double) logLines / all.length);
+    }
+
+    private static double percentile(final long[] sorted, final double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "%8d requests %10.1f req/s  p50 %7.2f ms  p90 %7.2f ms  p99 %7.2f ms  max %8.2f ms  errors %d  log lines/request %5.2f"
+                .formatted(requests, throughput, p50Millis, p90Millis, p99Millis, maxMillis, errors, logLinesPerRequest);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.mdcwrapper.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares platform-thread and virtual-thread serving for the list endpoints while the connection pool is much
+ * smaller than the number of concurrent clients, so requests queue for a JDBC connection.
+ * <p>
+ * Run with {@code ./gradlew loadTest}.
+ */
+@Tag("load")
+public final class ThreadModelLoadTest {
+
+    private static final int POOL_SIZE = 5;
+    private static final LoadProfile PROFILE =
+            new LoadProfile(200, Duration.ofSeconds(3), Duration.ofSeconds(10), LoadProfile.Mix.LIST_ONLY);
+
+    @Test
+    public void shouldCompareThreadModels() throws Exception {
+        final List<String> report = new ArrayList<>();
+        for (final boolean virtual : new boolean[]{false, true}) {
+            try (final ConfigurableApplicationContext context = LoadHarness.start(
+                    virtual ? "virtual" : "platform",
+                    "spring.threads.virtual.enabled=" + virtual,
+                    "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                    "logging.level.com.example=INFO")) {
+                for (final Api api : Api.values()) {
+                    final LoadReport result = LoadHarness.run(LoadHarness.baseUrl(context), api, PROFILE);
+                    report.add("%-8s %-11s %s".formatted(virtual ? "virtual" : "platform", api.path(), result));
+                    assertThat(result.errors()).as("failed requests").isZero();
+                }
+            }
+        }
+        report.forEach(System.out::println);
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.mdcwrapper.logging;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for ArrayMdcAdapter.
+ */
+public final class ArrayMdcAdapterTest {
+
+    private final ArrayMdcAdapter adapter = new ArrayMdcAdapter();
+
+    @Test
+    public void shouldBeInstalledThroughTheServiceProvider() {
+        assertThat(MDC.getMDCAdapter()).isInstanceOf(ArrayMdcAdapter.class);
+        assertThat(ArrayMdcAdapter.installed()).isSameAs(MDC.getMDCAdapter());
+    }
+
+    @Test
+    public void shouldPutGetAndRemoveManyKeys() {
+        final Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            adapter.put("key" + i, "value" + i);
+            expected.put("key" + i, "value" + i);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            adapter.remove("key" + i);
+            expected.remove("key" + i);
+        }
+
+        assertThat(adapter.getCopyOfContextMap()).isEqualTo(expected);
+        expected.forEach((key, value) -> assertThat(adapter.get(key)).isEqualTo(value));
+        assertThat(adapter.get("key0")).isNull();
+    }
+
+    @Test
+    public void shouldKeepSnapshotsImmutable() {
+        adapter.put("id", "1");
+        final Map<String, String> snapshot = adapter.getCopyOfContextMap();
+
+        adapter.put("id", "2");
+        adapter.put("name", "Billy");
+
+        assertThat(snapshot).containsExactly(Map.entry("id", "1"));
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("id", "2"), Map.entry("name", "Billy"));
+        assertThatThrownBy(() -> snapshot.put("id", "3")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void shouldReuseSnapshotUntilTheNextWrite() {
+        adapter.put("id", "1");
+
+        assertThat(adapter.getCopyOfContextMap()).isSameAs(adapter.getCopyOfContextMap());
+    }
+
+    @Test
+    public void shouldRestoreShadowedValuesOnRollback() {
+        adapter.put("outer", "value");
+        final int outer = adapter.mark();
+        adapter.put("id", "1");
+
+        final int inner = adapter.mark();
+        adapter.put("id", "2");
+        adapter.remove("outer");
+        adapter.put("inner", "value");
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("id", "2"), Map.entry("inner", "value"));
+
+        adapter.rollback(inner);
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("id", "1"), Map.entry("outer", "value"));
+
+        adapter.rollback(outer);
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("outer", "value"));
+    }
+
+    @Test
+    public void shouldFormatNumbersAndSuppliersOnlyWhenRead() {
+        final AtomicInteger calls = new AtomicInteger();
+        adapter.put("id", "old");
+        final int mark = adapter.mark();
+        adapter.putLong("id", 42);
+        adapter.putLong("min", Long.MIN_VALUE);
+        adapter.putLazy("name", () -> {
+            calls.incrementAndGet();
+            return "Billy";
+        });
+        assertThat(adapter.get("id")).isEqualTo("42");
+        assertThat(calls).hasValue(0);
+
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("id", "42"),
+                Map.entry("min", "-9223372036854775808"), Map.entry("name", "Billy"));
+        assertThat(adapter.get("name")).isEqualTo("Billy");
+        assertThat(calls).hasValue(1);
+
+        final Map<String, Long> numbers = new HashMap<>();
+        ((ArrayMdcAdapter.Snapshot) adapter.getCopyOfContextMap()).visit(new ArrayMdcAdapter.Visitor() {
+            @Override
+            public void acceptNumber(final String key, final long value) {
+                numbers.put(key, value);
+            }
+
+            @Override
+            public void accept(final String key, final String value) {
+            }
+        });
+        assertThat(numbers).containsOnly(Map.entry("id", 42L), Map.entry("min", Long.MIN_VALUE));
+
+        adapter.rollback(mark);
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("id", "old"));
+    }
+
+    @Test
+    public void shouldLeaveOutSuppliersReturningNull() {
+        adapter.put("id", "1");
+        adapter.putLazy("name", () -> null);
+        adapter.putLazy(MdcKey.of("lazySlot"), () -> null);
+
+        final Map<String, String> snapshot = adapter.getCopyOfContextMap();
+        assertThat(adapter.get("name")).isNull();
+        assertThat(snapshot.containsKey("name")).isFalse();
+        assertThat(snapshot).hasSize(1);
+        assertThat(Map.copyOf(snapshot)).containsOnly(Map.entry("id", "1"));
+    }
+
+    @Test
+    public void shouldKeepRegisteredKeysInTheirSlots() {
+        final MdcKey slotted = MdcKey.of("slotted");
+        adapter.put("hashed", "value");
+        final int mark = adapter.mark();
+        adapter.putLong(slotted, 7);
+        assertThat(adapter.get("slotted")).isEqualTo("7");
+
+        adapter.put("slotted", "by name");
+        assertThat(adapter.get(slotted)).isEqualTo("by name");
+        final Map<String, String> snapshot = adapter.getCopyOfContextMap();
+        assertThat(snapshot).hasSize(2).containsEntry("slotted", "by name").containsKey("hashed");
+        assertThat(Map.copyOf(snapshot)).containsOnly(Map.entry("slotted", "by name"), Map.entry("hashed", "value"));
+
+        adapter.remove(slotted);
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("hashed", "value"));
+        assertThat(snapshot).containsEntry("slotted", "by name");
+
+        adapter.put(slotted, "again");
+        adapter.rollback(mark);
+        assertThat(adapter.get(slotted)).isNull();
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("hashed", "value"));
+    }
+
+    @Test
+    public void shouldMoveEntriesPutBeforeTheirKeyWasRegistered() {
+        final int mark = adapter.mark();
+        adapter.put("lateKey", "early");
+        final Map<String, String> before = adapter.getCopyOfContextMap();
+        final MdcKey late = MdcKey.of("lateKey");
+
+        assertThat(adapter.get(late)).isEqualTo("early");
+        assertThat(adapter.get("lateKey")).isEqualTo("early");
+        assertThat(before).containsEntry("lateKey", "early");
+        adapter.put(late, "late");
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("lateKey", "late"));
+
+        adapter.remove("lateKey");
+        assertThat(adapter.getCopyOfContextMap()).isEmpty();
+        adapter.put("lateKey", "again");
+        adapter.rollback(mark);
+        assertThat(adapter.get(late)).isNull();
+        assertThat(adapter.getCopyOfContextMap()).isNullOrEmpty();
+    }
+
+    @Test
+    public void shouldClearOnANullContextMap() {
+        final Map<String, String> saved = adapter.getCopyOfContextMap();
+        adapter.put("id", "1");
+
+        adapter.setContextMap(saved);
+
+        assertThat(saved).isNull();
+        assertThat(adapter.get("id")).isNull();
+    }
+
+    @Test
+    public void shouldRollBackAReplacedContextMap() {
+        adapter.put("id", "1");
+        adapter.put(MdcKey.of("replaced"), "slotted");
+        final Map<String, String> before = Map.copyOf(adapter.getCopyOfContextMap());
+        final int mark = adapter.mark();
+
+        adapter.setContextMap(Map.of("name", "Billy"));
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("name", "Billy"));
+
+        adapter.rollback(mark);
+        assertThat(adapter.getCopyOfContextMap()).isEqualTo(before);
+    }
+
+    @Test
+    public void shouldDropTheOldestChangesOnceTheUndoLogIsFull() {
+        final int mark = adapter.mark();
+        for (int entry = 0; entry < ArrayMdcAdapter.MAX_UNDO_ENTRIES + 10; entry++) {
+            adapter.put("key" + entry, "value");
+        }
+
+        adapter.rollback(mark);
+
+        // the dropped changes can no longer be undone and stay until the context is cleared
+        assertThat(adapter.getCopyOfContextMap()).hasSize(10).containsKeys("key0", "key9");
+        assertThat(adapter.mark()).isEqualTo(mark);
+    }
+
+    @Test
+    public void shouldAdoptAnotherThreadsSnapshot() throws InterruptedException {
+        adapter.put("id", "1");
+        final Map<String, String> snapshot = adapter.getCopyOfContextMap();
+        final Map<String, String> seen = new HashMap<>();
+
+        final Thread worker = new Thread(() -> {
+            adapter.setContextMap(snapshot);
+            adapter.put("name", "Billy");
+            seen.putAll(adapter.getCopyOfContextMap());
+        });
+        worker.start();
+        worker.join();
+
+        assertThat(seen).containsOnly(Map.entry("id", "1"), Map.entry("name", "Billy"));
+        assertThat(adapter.getCopyOfContextMap()).containsOnly(Map.entry("id", "1"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.mdcwrapper.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for MdcEncoder.
+ */
+public final class MdcEncoderTest {
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("encoder");
+    private final MdcEncoder encoder = new MdcEncoder();
+
+    @BeforeEach
+    void setup() {
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        encoder.setContext(context);
+        encoder.setPattern("%level - %msg");
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    public void shouldWriteMdcAsKeyValuePairs() {
+        encoder.start();
+        MDC.put("name", "Billy");
+
+        assertThat(encode("Started adding a new goat")).isEqualTo("INFO - Started adding a new goat MDC: name=Billy" + NEWLINE);
+    }
+
+    @Test
+    public void shouldSkipTheSectionWhenTheMdcIsEmpty() {
+        encoder.start();
+
+        assertThat(encode("No context")).isEqualTo("INFO - No context" + NEWLINE);
+    }
+
+    @Test
+    public void shouldWriteMdcAsEscapedJson() {
+        encoder.setFormat(MdcEncoder.Format.JSON);
+        encoder.start();
+        MDC.put("name", "Bil\"ly\\ é🐐");
+
+        assertThat(encode("Json")).isEqualTo("INFO - Json MDC: {\"name\":\"Bil\\\"ly\\\\ é🐐\"}" + NEWLINE);
+    }
+
+    @Test
+    public void shouldColourTheSection() {
+        encoder.setColor(true);
+        encoder.start();
+        MDC.put("id", "1");
+
+        assertThat(encode("Coloured")).isEqualTo("INFO - Coloured \u001B[36mMDC: id=1\u001B[0;39m" + NEWLINE);
+    }
+
+    @Test
+    public void shouldWriteExceptionsAfterTheMdcSection() {
+        encoder.start();
+        MDC.put("id", "1");
+        final LoggingEvent event = new LoggingEvent(Logger.FQCN, logger, Level.ERROR, "Failed", new IllegalStateException("boom"), null);
+
+        final String encoded = new String(encoder.encode(event), StandardCharsets.UTF_8);
+
+        assertThat(encoded).startsWith("ERROR - Failed MDC: id=1" + NEWLINE + "java.lang.IllegalStateException: boom");
+    }
+
+    @Test
+    public void shouldWriteNumbersWithoutFormattingThemFirst() {
+        encoder.start();
+        final ArrayMdcAdapter adapter = (ArrayMdcAdapter) MDC.getMDCAdapter();
+        adapter.putLong("id", 0);
+        adapter.putLong("goats", -1234567890123L);
+
+        assertThat(encode("Numbers")).contains("MDC: ").contains("id=0").contains("goats=-1234567890123");
+    }
+
+    private String encode(final String message) {
+        final LoggingEvent event = new LoggingEvent(Logger.FQCN, logger, Level.INFO, message, null, null);
+        return new String(encoder.encode(event), StandardCharsets.UTF_8);
+    }
+}
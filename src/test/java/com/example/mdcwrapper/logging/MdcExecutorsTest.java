@@ -0,0 +1,79 @@
+package com.example.mdcwrapper.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for MdcExecutors.
+ */
+public final class MdcExecutorsTest {
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdownNow();
+        MDC.clear();
+    }
+
+    @Test
+    public void shouldRunTasksWithTheSubmittersMdc() throws Exception {
+        final ExecutorService executor = MdcExecutors.wrap(worker);
+        MDC.put("id", "42");
+
+        final String seen = executor.submit(() -> MDC.get("id")).get();
+
+        assertThat(seen).isEqualTo("42");
+    }
+
+    @Test
+    public void shouldCaptureTheMdcAtSubmitTime() throws Exception {
+        final ExecutorService executor = MdcExecutors.wrap(worker);
+        MDC.put("id", "1");
+        final Future<String> first = executor.submit(() -> MDC.get("id"));
+        MDC.put("id", "2");
+        final Future<String> second = executor.submit(() -> MDC.get("id"));
+
+        assertThat(List.of(first.get(), second.get())).containsExactly("1", "2");
+    }
+
+    @Test
+    public void shouldRestoreTheWorkersOwnMdcAfterTheTask() throws Exception {
+        worker.submit(() -> MDC.put("worker", "own")).get();
+        final ExecutorService executor = MdcExecutors.wrap(worker);
+        MDC.put("id", "42");
+
+        executor.submit(() -> MDC.put("leaked", "value")).get();
+        final Map<String, String> after = worker.submit(MDC::getCopyOfContextMap).get();
+
+        assertThat(after).containsOnly(Map.entry("worker", "own"));
+        assertThat(MDC.get("leaked")).isNull();
+    }
+
+    @Test
+    public void shouldPropagateMdcThroughSupplyAsync() {
+        MDC.put("id", "42");
+
+        final String seen = MdcExecutors.supplyAsync(() -> MDC.get("id"), worker).join();
+
+        assertThat(seen).isEqualTo("42");
+    }
+
+    @Test
+    public void shouldPropagateMdcThroughTaskDecorator() throws Exception {
+        MDC.put("id", "42");
+        final Runnable decorated = new MdcTaskDecorator().decorate(() -> assertThat(MDC.get("id")).isEqualTo("42"));
+        MDC.clear();
+
+        worker.submit(decorated).get();
+    }
+}
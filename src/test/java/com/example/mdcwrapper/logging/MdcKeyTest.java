@@ -0,0 +1,31 @@
+package com.example.mdcwrapper.logging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for MdcKey.
+ */
+public final class MdcKeyTest {
+
+    @Test
+    public void shouldReturnTheSameKeyForTheSameName() {
+        final MdcKey key = MdcKey.of("mdcKeyTest.same");
+
+        assertThat(MdcKey.of("mdcKeyTest.same")).isSameAs(key);
+        assertThat(MdcKey.find("mdcKeyTest.same")).isSameAs(key);
+        assertThat(key.name()).isEqualTo("mdcKeyTest.same");
+    }
+
+    @Test
+    public void shouldHandOutSlotsInRegistrationOrder() {
+        final MdcKey first = MdcKey.of("mdcKeyTest.first");
+        final MdcKey second = MdcKey.of("mdcKeyTest.second");
+
+        assertThat(second.slot()).isGreaterThan(first.slot());
+        assertThat(MdcKey.ofSlot(first.slot())).isSameAs(first);
+        assertThat(MdcKey.count()).isGreaterThan(second.slot());
+        assertThat(MdcKey.find("mdcKeyTest.unregistered")).isNull();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.mdcwrapper.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for MdcStack.
+ */
+public final class MdcStackTest {
+
+    private final MdcStack stack = MdcStack.current();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    public void shouldRestoreShadowedValuesOnRollback() {
+        MDC.put("outside", "kept");
+        final int outer = stack.mark();
+        stack.put("id", "1");
+
+        final int inner = stack.mark();
+        stack.put("id", "2");
+        stack.put("name", "Billy");
+        stack.put("id", "3");
+        assertThat(MDC.getCopyOfContextMap())
+                .containsOnly(Map.entry("outside", "kept"), Map.entry("id", "3"), Map.entry("name", "Billy"));
+
+        stack.rollback(inner);
+        assertThat(MDC.getCopyOfContextMap()).containsOnly(Map.entry("outside", "kept"), Map.entry("id", "1"));
+
+        stack.rollback(outer);
+        assertThat(MDC.getCopyOfContextMap()).containsOnly(Map.entry("outside", "kept"));
+        assertThat(stack.mark()).isZero();
+    }
+
+    @Test
+    public void shouldUnwindScopesLeftOpenInsideTheOneClosing() {
+        final int outer = stack.mark();
+        stack.put("id", "1");
+        for (int depth = 0; depth < 1_000; depth++) {
+            stack.mark();
+            stack.put("depth", Integer.toString(depth));
+        }
+
+        stack.rollback(outer);
+
+        assertThat(MDC.get("id")).isNull();
+        assertThat(MDC.get("depth")).isNull();
+        assertThat(stack.mark()).isZero();
+    }
+
+    @Test
+    public void shouldDropTheOldestChangesOnceFull() {
+        final int mark = stack.mark();
+        for (int entry = 0; entry < MdcStack.MAX_ENTRIES + 10; entry++) {
+            stack.put("key" + entry, "value");
+        }
+
+        stack.rollback(mark);
+
+        // the dropped changes can no longer be undone and stay until the MDC is cleared
+        assertThat(MDC.getCopyOfContextMap()).hasSize(10).containsKeys("key0", "key9");
+        assertThat(stack.mark()).isEqualTo(mark);
+    }
+
+    @Test
+    public void shouldForgetLeakedChangesOnReset() {
+        stack.put("leaked", "value");
+
+        MdcStack.reset();
+        MDC.clear();
+
+        assertThat(stack.mark()).isZero();
+        final int mark = stack.mark();
+        stack.put("id", "1");
+        stack.rollback(mark);
+        assertThat(MDC.get("id")).isNull();
+    }
+}
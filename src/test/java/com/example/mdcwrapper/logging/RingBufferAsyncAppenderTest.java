@@ -0,0 +1,143 @@
+package com.example.mdcwrapper.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for RingBufferAsyncAppender.
+ */
+public final class RingBufferAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("ring");
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private RingBufferAsyncAppender appender;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        appender.stop();
+        MDC.clear();
+    }
+
+    @Test
+    public void shouldWriteEveryEventInOrderWithTheMdcOfTheLoggingThread() {
+        start(RingBufferAsyncAppender.OverflowPolicy.BLOCK, 16, written);
+
+        IntStream.range(0, 1_000).forEach(i -> {
+            MDC.put("id", Integer.toString(i));
+            append(Level.INFO, "event " + i);
+        });
+        MDC.clear();
+        appender.stop();
+
+        final String[] lines = written.toString().split("\n");
+        assertThat(lines).hasSize(1_000);
+        assertThat(lines[0]).isEqualTo("event 0 id=0");
+        assertThat(lines[999]).isEqualTo("event 999 id=999");
+        assertThat(appender.getDroppedCount()).isZero();
+    }
+
+    @Test
+    public void shouldDropTheOldestEventsWhenFull() throws InterruptedException {
+        start(RingBufferAsyncAppender.OverflowPolicy.DROP_OLDEST, 4, blockingStream());
+        append(Level.INFO, "first");
+        writing.await();
+
+        IntStream.range(0, 10).forEach(i -> append(Level.INFO, "event " + i));
+        release.countDown();
+        appender.stop();
+
+        assertThat(appender.getDroppedCount()).isEqualTo(6);
+        assertThat(written.toString().split("\n"))
+                .containsExactly("first id=", "event 6 id=", "event 7 id=", "event 8 id=", "event 9 id=");
+    }
+
+    @Test
+    public void shouldDropDebugEventsFirst() throws InterruptedException {
+        start(RingBufferAsyncAppender.OverflowPolicy.DROP_DEBUG, 4, blockingStream());
+        append(Level.INFO, "first");
+        writing.await();
+
+        IntStream.range(0, 4).forEach(i -> append(Level.INFO, "event " + i));
+        append(Level.DEBUG, "debug");
+        release.countDown();
+        appender.stop();
+
+        assertThat(appender.getDroppedCount()).isEqualTo(1);
+        assertThat(written.toString()).doesNotContain("debug").contains("event 3");
+    }
+
+    @Test
+    public void shouldDropAnEventThatFailsToEncodeAndKeepWriting() {
+        start(RingBufferAsyncAppender.OverflowPolicy.BLOCK, 4, written);
+
+        ArrayMdcAdapter.installed().putLazy("id", () -> {
+            throw new IllegalStateException("boom");
+        });
+        append(Level.INFO, "broken");
+        MDC.clear();
+        IntStream.range(0, 10).forEach(i -> append(Level.INFO, "event " + i));
+        appender.stop();
+
+        assertThat(appender.getDroppedCount()).isEqualTo(1);
+        assertThat(written.toString().split("\n")).hasSize(10).doesNotContain("broken id=");
+    }
+
+    private void start(final RingBufferAsyncAppender.OverflowPolicy policy, final int capacity,
+                       final OutputStream out) {
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        final PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%msg id=%X{id}%n");
+        encoder.start();
+
+        appender = new RingBufferAsyncAppender();
+        appender.setContext(context);
+        appender.setName("ring");
+        appender.setEncoder(encoder);
+        appender.setCapacity(capacity);
+        appender.setOverflowPolicy(policy);
+        appender.setOutputStream(out);
+        appender.start();
+    }
+
+    private OutputStream blockingStream() {
+        return new OutputStream() {
+            @Override
+            public void write(final int b) {
+                written.write(b);
+            }
+
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written.write(bytes, offset, length);
+            }
+        };
+    }
+
+    private void append(final Level level, final String message) {
+        appender.doAppend(new LoggingEvent(Logger.FQCN, logger, level, message, null, null));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.mdcwrapper.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for ScopeLogPolicy.
+ */
+public final class ScopeLogPolicyTest {
+
+    @AfterEach
+    void tearDown() {
+        ScopeLogPolicy.reset();
+    }
+
+    @Test
+    public void shouldAdmitEveryScopeWithoutRules() {
+        assertThat(IntStream.range(0, 1_000).allMatch(i -> ScopeLogPolicy.admit("com.example", "any action")))
+                .isTrue();
+    }
+
+    @Test
+    public void shouldSampleOneInN() {
+        ScopeLogPolicy.configure("sampled action", 10, 0, 1);
+
+        final long admitted = IntStream.range(0, 100_000)
+                .filter(i -> ScopeLogPolicy.admit("com.example", "sampled action"))
+                .count();
+
+        assertThat(admitted).isBetween(9_000L, 11_000L);
+    }
+
+    @Test
+    public void shouldLimitBurstsToTheBucketSize() {
+        ScopeLogPolicy.configure("limited action", 1, 1, 5);
+
+        final long admitted = IntStream.range(0, 1_000)
+                .filter(i -> ScopeLogPolicy.admit("com.example", "limited action"))
+                .count();
+
+        assertThat(admitted).isBetween(5L, 6L);
+    }
+
+    @Test
+    public void shouldApplyLoggerRulesToChildLoggersUnlessTheActionHasItsOwn() {
+        ScopeLogPolicy.configure("com.example.mdcwrapper", 1, 1, 1);
+        ScopeLogPolicy.configure("own action", 1, 0, 1);
+
+        assertThat(ScopeLogPolicy.admit("com.example.mdcwrapper.java.GoatService", "getting a goat")).isTrue();
+        assertThat(ScopeLogPolicy.admit("com.example.mdcwrapper.java.GoatService", "updating a goat")).isFalse();
+        assertThat(ScopeLogPolicy.admit("com.example.mdcwrapper.java.GoatService", "own action")).isTrue();
+        assertThat(ScopeLogPolicy.admit("com.other.Service", "getting a goat")).isTrue();
+    }
+
+    @Test
+    public void shouldRejectInvalidRules() {
+        assertThatThrownBy(() -> ScopeLogPolicy.configure("action", 0, 0, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
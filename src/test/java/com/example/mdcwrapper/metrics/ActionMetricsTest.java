@@ -0,0 +1,56 @@
+package com.example.mdcwrapper.metrics;
+
+import com.example.mdcwrapper.metrics.ActionMetrics.ActionStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for ActionMetrics.
+ */
+public final class ActionMetricsTest {
+
+    private final ActionMetrics metrics = new ActionMetrics();
+
+    @Test
+    public void shouldCountScopesAndErrorsPerAction() {
+        metrics.record("adding a new goat", 1_000_000);
+        metrics.record("adding a new goat", 2_000_000, true);
+        metrics.record("getting a goat", 3_000_000);
+
+        final List<ActionStats> stats = metrics.snapshot();
+
+        assertThat(stats).extracting(ActionStats::action).containsExactly("adding a new goat", "getting a goat");
+        assertThat(stats.get(0).count()).isEqualTo(2);
+        assertThat(stats.get(0).errors()).isEqualTo(1);
+        assertThat(stats.get(0).maxMillis()).isEqualTo(2.0);
+        assertThat(stats.get(1).p50Millis()).isCloseTo(3.0, within(3.0 / 16));
+    }
+
+    @Test
+    public void shouldNotLoseRecordsFromConcurrentWriters() throws Exception {
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<?>> futures = IntStream.range(0, 64)
+                    .<Future<?>>mapToObj(task -> executor.submit(() -> {
+                        for (int i = 0; i < 1_000; i++) {
+                            metrics.record("serving GET /api/goats", i, i % 10 == 0);
+                        }
+                    }))
+                    .toList();
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        final ActionStats stats = metrics.snapshot().getFirst();
+        assertThat(stats.count()).isEqualTo(64_000);
+        assertThat(stats.errors()).isEqualTo(6_400);
+    }
+}
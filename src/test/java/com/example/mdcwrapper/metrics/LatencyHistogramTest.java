@@ -0,0 +1,40 @@
+package com.example.mdcwrapper.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for LatencyHistogram.
+ */
+public final class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapEveryValueIntoItsBucketBounds() {
+        for (long value = 0; value < 100_000; value += 7) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertThat(value).isBetween(LatencyHistogram.lowerBound(index), LatencyHistogram.upperBound(index));
+        }
+        assertThat(LatencyHistogram.indexOf(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinTheBucketError() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertThat(histogram.count()).isEqualTo(1_000);
+        assertThat(histogram.max()).isEqualTo(1_000_000);
+        assertThat((double) histogram.percentile(0.50)).isCloseTo(500_000, within(500_000 / 16.0));
+        assertThat((double) histogram.percentile(0.99)).isCloseTo(990_000, within(990_000 / 16.0));
+        assertThat(histogram.percentile(1.0)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    public void shouldReportZeroWhenEmpty() {
+        assertThat(new LatencyHistogram().percentile(0.99)).isZero();
+    }
+}
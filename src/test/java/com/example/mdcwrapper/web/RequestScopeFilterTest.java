@@ -0,0 +1,130 @@
+package com.example.mdcwrapper.web;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for RequestScopeFilter.
+ */
+public final class RequestScopeFilterTest {
+
+    private static final Logger logger = (Logger) LoggerFactory.getLogger(RequestScopeFilter.class);
+    private final RequestScopeFilter filter = new RequestScopeFilter();
+    private final AtomicReference<String> requestIdInChain = new AtomicReference<>();
+    private ListAppender<ILoggingEvent> listAppender;
+
+    @BeforeEach
+    void setup() {
+        listAppender = new ListAppender<>();
+        listAppender.start();
+        logger.addAppender(listAppender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(listAppender);
+    }
+
+    @Test
+    public void shouldOpenOneScopeNamedAfterTheRoute() throws Exception {
+        final MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/api/goats/7"));
+
+        assertThat(requestIdInChain.get()).matches("[0-9a-f]{16}");
+        assertThat(response.getHeader(RequestScopeFilter.REQUEST_ID_HEADER)).isEqualTo(requestIdInChain.get());
+        assertThat(MDC.get("requestId")).isNull();
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("Started serving GET", "Finished serving GET /api/goats/{id}");
+        assertThat(logs.get(1).getMDCPropertyMap())
+                .containsEntry("requestId", requestIdInChain.get())
+                .containsEntry("method", "GET")
+                .containsEntry("route", "/api/goats/{id}")
+                .containsEntry("status", "404")
+                .containsKey("elapsedMicros");
+    }
+
+    @Test
+    public void shouldCloseTheScopeOfAnAsyncRequestWhenItCompletes() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/goats/export");
+        request.setAsyncSupported(true);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/goats/export");
+            req.startAsync(req, res);
+        });
+
+        assertThat(MDC.get("requestId")).isNull();
+        assertThat(listAppender.list).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("Started serving GET");
+
+        final Thread writer = new Thread(() -> {
+            ((HttpServletResponse) request.getAsyncContext().getResponse()).setStatus(200);
+            request.getAsyncContext().complete();
+        });
+        writer.start();
+        writer.join();
+
+        final List<ILoggingEvent> logs = listAppender.list;
+        assertThat(logs).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("Started serving GET", "Finished serving GET /api/goats/export");
+        assertThat(logs.get(1).getMDCPropertyMap())
+                .containsEntry("requestId", response.getHeader(RequestScopeFilter.REQUEST_ID_HEADER))
+                .containsEntry("route", "/api/goats/export")
+                .containsEntry("status", "200")
+                .containsKey("elapsedMicros");
+    }
+
+    @Test
+    public void shouldKeepAPlausibleInboundRequestId() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/goats/7");
+        request.addHeader(RequestScopeFilter.REQUEST_ID_HEADER, "edge-4f2a.17");
+
+        final MockHttpServletResponse response = serve(request);
+
+        assertThat(requestIdInChain.get()).isEqualTo("edge-4f2a.17");
+        assertThat(response.getHeader(RequestScopeFilter.REQUEST_ID_HEADER)).isEqualTo("edge-4f2a.17");
+    }
+
+    @Test
+    public void shouldReplaceAnInboundRequestIdThatIsUnsafeToLog() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/goats/7");
+        request.addHeader(RequestScopeFilter.REQUEST_ID_HEADER, "forged\nINFO - Finished everything");
+
+        serve(request);
+
+        assertThat(requestIdInChain.get()).matches("[0-9a-f]{16}");
+    }
+
+    @Test
+    public void shouldDrawDistinctRequestIds() {
+        assertThat(RequestScopeFilter.newRequestId()).isNotEqualTo(RequestScopeFilter.newRequestId());
+    }
+
+    private MockHttpServletResponse serve(final MockHttpServletRequest request) throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final FilterChain handler = (req, res) -> {
+            requestIdInChain.set(MDC.get("requestId"));
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/goats/{id}");
+            ((HttpServletResponse) res).setStatus(404);
+        };
+        filter.doFilter(request, response, handler);
+        return response;
+    }
+}
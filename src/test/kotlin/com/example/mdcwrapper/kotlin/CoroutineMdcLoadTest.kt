@@ -0,0 +1,68 @@
+package com.example.kotlin.mdcwrapper
+
+import com.example.mdcwrapper.kotlin.MdcContextElement
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import org.slf4j.MDC
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.coroutines.CoroutineContext
+import kotlin.coroutines.EmptyCoroutineContext
+
+/**
+ * Measures coroutine context switches per second on [Dispatchers.Default] with and without an [MdcContextElement].
+ *
+ * Run with `./gradlew loadTest --tests '*CoroutineMdcLoadTest'`.
+ */
+@Tag("load")
+class CoroutineMdcLoadTest {
+    @Test
+    fun `should report context switches per second`() {
+        val report =
+            listOf("plain", "mdc", "plain", "mdc").map { name ->
+                val switches =
+                    switchesPerSecond { index ->
+                        if (name == "mdc") {
+                            MdcContextElement(mapOf("id" to index.toString(), "user" to "u$index"))
+                        } else {
+                            EmptyCoroutineContext
+                        }
+                    }
+                "%-5s %,14.0f switches/s".format(name, switches)
+            }
+
+        println("coroutines=$COROUTINES, yields=$YIELDS")
+        // the first round of each warms up the JIT
+        report.drop(2).forEach(::println)
+    }
+
+    private fun switchesPerSecond(context: (Int) -> CoroutineContext): Double {
+        val wrong = AtomicInteger()
+        val start = System.nanoTime()
+        runBlocking(Dispatchers.Default) {
+            repeat(COROUTINES) { index ->
+                launch(context(index)) {
+                    val expected = index.toString()
+                    repeat(YIELDS) {
+                        yield()
+                        if (MDC.get("id") != null && MDC.get("id") != expected) {
+                            wrong.incrementAndGet()
+                        }
+                    }
+                }
+            }
+        }
+        val seconds = (System.nanoTime() - start) / 1e9
+        assertThat(wrong).hasValue(0)
+        return COROUTINES.toDouble() * YIELDS / seconds
+    }
+
+    private companion object {
+        const val COROUTINES = 50_000
+        const val YIELDS = 100
+    }
+}
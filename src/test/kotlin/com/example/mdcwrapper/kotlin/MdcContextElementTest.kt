@@ -0,0 +1,106 @@
+package com.example.kotlin.mdcwrapper
+
+import ch.qos.logback.classic.Logger
+import ch.qos.logback.classic.spi.ILoggingEvent
+import ch.qos.logback.core.read.ListAppender
+import com.example.mdcwrapper.kotlin.MdcContextElement
+import com.example.mdcwrapper.kotlin.MdcWrapper
+import com.example.mdcwrapper.kotlin.infoSuspending
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.yield
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.slf4j.LoggerFactory
+import org.slf4j.MDC
+import java.util.concurrent.atomic.AtomicInteger
+
+class MdcContextElementTest {
+    private val logger = LoggerFactory.getLogger(MdcContextElementTest::class.java) as Logger
+    private val listAppender = ListAppender<ILoggingEvent>()
+
+    @BeforeEach
+    fun setup() {
+        listAppender.start()
+        logger.addAppender(listAppender)
+    }
+
+    @AfterEach
+    fun tearDown() {
+        logger.detachAppender(listAppender)
+        MDC.clear()
+    }
+
+    @Test
+    fun `should keep each coroutine's MDC across suspension points on a shared pool`() {
+        val wrong = AtomicInteger()
+
+        runBlocking(Dispatchers.Default) {
+            repeat(10_000) { index ->
+                launch(MdcContextElement(mapOf("id" to index.toString()))) {
+                    repeat(10) {
+                        yield()
+                        if (MDC.get("id") != index.toString()) {
+                            wrong.incrementAndGet()
+                        }
+                    }
+                }
+            }
+        }
+
+        assertThat(wrong).hasValue(0)
+        assertThat(MDC.get("id")).isNull()
+    }
+
+    @Test
+    fun `should keep entries put by the coroutine until it resumes elsewhere`() {
+        runBlocking {
+            withContext(Dispatchers.Default + MdcContextElement(mapOf("request" to "r1"))) {
+                MDC.put("step", "one")
+                withContext(Dispatchers.IO) { delay(1) }
+                assertThat(MDC.get("request")).isEqualTo("r1")
+                assertThat(MDC.get("step")).isEqualTo("one")
+            }
+        }
+    }
+
+    @Test
+    fun `should log a suspending scope with the entries put on either side of a suspension`() {
+        runBlocking(MdcContextElement(mapOf("request" to "r1"))) {
+            MdcWrapper.infoSuspending(logger, "suspending action", "noteId" to "7") { mdc ->
+                withContext(Dispatchers.Default) { delay(1) }
+                mdc.put("title", "Hello")
+                withContext(Dispatchers.IO) { delay(1) }
+            }
+            assertThat(MDC.get("noteId")).isNull()
+            assertThat(MDC.get("request")).isEqualTo("r1")
+        }
+
+        val finished = listAppender.list.last()
+        assertThat(finished.formattedMessage).isEqualTo("Finished suspending action")
+        assertThat(finished.mdcPropertyMap)
+            .containsEntry("request", "r1")
+            .containsEntry("noteId", "7")
+            .containsEntry("title", "Hello")
+    }
+
+    @Test
+    fun `should mark a suspending scope as failed when its block throws`() {
+        assertThatThrownBy {
+            runBlocking {
+                MdcWrapper.infoSuspending(logger, "failing suspending action") {
+                    delay(1)
+                    throw IllegalStateException("boom")
+                }
+            }
+        }.isInstanceOf(IllegalStateException::class.java)
+
+        assertThat(listAppender.list.last().mdcPropertyMap).containsEntry("error", "IllegalStateException")
+    }
+}
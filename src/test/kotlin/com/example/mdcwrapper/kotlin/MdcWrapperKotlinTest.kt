@@ -1,10 +1,13 @@
 package com.example.kotlin.mdcwrapper
 
+import ch.qos.logback.classic.Level
 import ch.qos.logback.classic.Logger
 import ch.qos.logback.classic.spi.ILoggingEvent
 import ch.qos.logback.core.read.ListAppender
 import com.example.mdcwrapper.kotlin.MdcWrapper
+import com.example.mdcwrapper.metrics.ActionMetrics
 import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
@@ -78,4 +81,109 @@ class MdcWrapperKotlinTest {
         assertThat(logs[5].mdcPropertyMap).containsEntry("outerKey", "outerValue")
         assertThat(logs[5].mdcPropertyMap).doesNotContainKey("innerKey")
     }
+
+    @Test
+    fun `should skip mdc and logs when level is disabled`() {
+        logger.level = Level.INFO
+        try {
+            MdcWrapper.debug(logger, "disabled action", "key1" to "value1").use { mdc ->
+                mdc.put("key2", "value2")
+
+                assertThat(MDC.get("key1")).isNull()
+                assertThat(MDC.get("key2")).isNull()
+            }
+        } finally {
+            logger.level = null
+        }
+
+        assertThat(listAppender.list).isEmpty()
+    }
+
+    @Test
+    fun `should put mdc without logging when mode is always`() {
+        logger.level = Level.INFO
+        try {
+            MdcWrapper.debug(logger, "quiet action", MdcWrapper.MdcMode.ALWAYS, "key1" to "value1").use {
+                assertThat(MDC.get("key1")).isEqualTo("value1")
+            }
+        } finally {
+            logger.level = null
+        }
+
+        assertThat(MDC.get("key1")).isNull()
+        assertThat(listAppender.list).isEmpty()
+    }
+
+    @Test
+    fun `should run a scoped body at the given level`() {
+        logger.level = Level.DEBUG
+        val result =
+            try {
+                MdcWrapper.run(logger, org.slf4j.event.Level.DEBUG, "debug run action", "key1" to "value1") { "done" }
+            } finally {
+                logger.level = null
+            }
+
+        assertThat(result).isEqualTo("done")
+        val logs = listAppender.list
+        assertThat(logs.map { it.formattedMessage })
+            .containsExactly("Started debug run action", "Finished debug run action")
+        assertThat(logs.map { it.level }).containsOnly(Level.DEBUG)
+
+        logger.level = Level.INFO
+        try {
+            val quiet = MdcWrapper.run(logger, org.slf4j.event.Level.DEBUG, "quiet run action") { "ran" }
+            assertThat(quiet).isEqualTo("ran")
+        } finally {
+            logger.level = null
+        }
+        assertThat(listAppender.list).hasSize(2)
+    }
+
+    @Test
+    fun `should mark the scope as failed when use throws`() {
+        assertThatThrownBy {
+            MdcWrapper.info(logger, "failing note action").use {
+                throw IllegalStateException("boom")
+            }
+        }.isInstanceOf(IllegalStateException::class.java)
+
+        val logs = listAppender.list
+        assertThat(logs[1].formattedMessage).isEqualTo("Finished failing note action")
+        assertThat(logs[1].mdcPropertyMap).containsEntry("error", "IllegalStateException")
+        assertThat(ActionMetrics.global().errors("failing note action")).isEqualTo(1)
+    }
+
+    @Test
+    fun `should log scope entries with started and formatted primitives`() {
+        val result =
+            MdcWrapper.infoScope(logger, "scoped note action", { mdc("title", "Groceries") }) {
+                mdc("id", 42L)
+                mdc("archived", false)
+                assertThat(MDC.get("title")).isEqualTo("Groceries")
+                assertThat(MDC.get("id")).isEqualTo("42")
+                "done"
+            }
+
+        assertThat(result).isEqualTo("done")
+        assertThat(MDC.get("title")).isNull()
+        assertThat(MDC.get("id")).isNull()
+        val logs = listAppender.list
+        assertThat(logs[0].formattedMessage).isEqualTo("Started scoped note action")
+        assertThat(logs[0].mdcPropertyMap).containsEntry("title", "Groceries")
+        assertThat(logs[1].mdcPropertyMap).containsEntry("id", "42").containsEntry("archived", "false")
+    }
+
+    @Test
+    fun `should mark the scope as failed when the scope block throws`() {
+        assertThatThrownBy {
+            MdcWrapper.infoScope(logger, "failing scoped action") {
+                throw IllegalStateException("boom")
+            }
+        }.isInstanceOf(IllegalStateException::class.java)
+
+        val logs = listAppender.list
+        assertThat(logs[1].mdcPropertyMap).containsEntry("error", "IllegalStateException")
+        assertThat(ActionMetrics.global().errors("failing scoped action")).isEqualTo(1)
+    }
 }
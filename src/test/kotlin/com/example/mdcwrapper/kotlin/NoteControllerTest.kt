@@ -1,6 +1,7 @@
 package com.example.kotlin.mdcwrapper
 
 import com.example.mdcwrapper.kotlin.*
+import com.example.mdcwrapper.web.KeysetPage
 import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.Assertions.assertThatThrownBy
 import org.junit.jupiter.api.Test
@@ -41,7 +42,9 @@ class NoteControllerTest {
         }
     }
 
-    private class MockNoteRepository : NoteRepository {
+    private class MockNoteRepository(
+        private val stored: List<Note> = emptyList(),
+    ) : NoteRepository {
         override fun <S : Note> save(entity: S): S = entity
 
         override fun <S : Note> saveAll(entities: Iterable<S>): Iterable<S> = entities
@@ -54,6 +57,34 @@ class NoteControllerTest {
 
         override fun findAllById(ids: Iterable<Long>): Iterable<Note> = emptyList()
 
+        override fun findAllIds(): List<Long> = emptyList()
+
+        override fun updateById(
+            id: Long,
+            title: String,
+            content: String,
+        ): Long? = null
+
+        override fun updateByIdAndVersion(
+            id: Long,
+            title: String,
+            content: String,
+            version: Long,
+        ): Long? = null
+
+        override fun removeById(id: Long): Int = 0
+
+        override fun insertBatch(notes: List<Note>): List<Long> = emptyList()
+
+        override fun updateBatch(notes: List<Note>) {}
+
+        override fun deleteBatch(ids: List<Long>) {}
+
+        override fun findPageAfter(
+            after: Long,
+            limit: Int,
+        ): List<Note> = stored.filter { it.id!! > after }.sortedBy { it.id }.take(limit)
+
         override fun count(): Long = 0
 
         override fun deleteById(id: Long) {}
@@ -95,6 +126,28 @@ class NoteControllerTest {
         assertThat(response.body).hasSize(2)
     }
 
+    @Test
+    fun `should page through notes with the cursor`() {
+        val notes = (1L..3L).map { Note(id = it, title = "Note $it", content = "Content $it") }
+        val controller = NoteController(NoteService(MockNoteRepository(notes)))
+
+        val first = controller.getNotes(null, 2).body!!
+        val second = controller.getNotes(first.nextCursor(), 2).body!!
+
+        assertThat(first.items().map { it.title }).containsExactly("Note 1", "Note 2")
+        assertThat(first.nextCursor()).isNotNull()
+        assertThat(second.items().map { it.title }).containsExactly("Note 3")
+        assertThat(second.nextCursor()).isNull()
+    }
+
+    @Test
+    fun `should reject a limit below one`() {
+        val controller = NoteController(NoteService(MockNoteRepository()))
+
+        assertThatThrownBy { controller.getNotes(null, 0) }
+            .isInstanceOf(KeysetPage.InvalidLimitException::class.java)
+    }
+
     @Test
     fun `should get note by id`() {
         val service = MockNoteService()
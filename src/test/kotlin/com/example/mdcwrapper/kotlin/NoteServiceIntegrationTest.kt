@@ -1,5 +1,8 @@
 package com.example.kotlin.mdcwrapper
 
+import ch.qos.logback.classic.Logger
+import ch.qos.logback.classic.spi.ILoggingEvent
+import ch.qos.logback.core.read.ListAppender
 import com.example.mdcwrapper.MdcwrapperApplication
 import com.example.mdcwrapper.kotlin.Note
 import com.example.mdcwrapper.kotlin.NoteNotFoundException
@@ -8,6 +11,7 @@ import com.example.mdcwrapper.kotlin.NoteService
 import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.Assertions.assertThatThrownBy
 import org.junit.jupiter.api.Test
+import org.slf4j.LoggerFactory
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.context.SpringBootTest
 
@@ -30,6 +34,17 @@ class NoteServiceIntegrationTest {
         assertThat(savedNote.content).isEqualTo("This is saved to H2")
     }
 
+    @Test
+    fun `should create a note sent with an id and version`() {
+        val sent = Note(id = 12_345L, title = "Versioned", content = "Content", version = 3L)
+
+        val savedNote = noteService.createNote(sent)
+
+        assertThat(savedNote.id).isNotNull().isNotEqualTo(12_345L)
+        assertThat(savedNote.version).isZero()
+        assertThat(noteService.getNoteById(savedNote.id!!).title).isEqualTo("Versioned")
+    }
+
     @Test
     fun `should get all notes from database`() {
         noteRepository.deleteAll()
@@ -52,6 +67,27 @@ class NoteServiceIntegrationTest {
         assertThat(found.content).isEqualTo("Find Content")
     }
 
+    @Test
+    fun `should log the id of the note it touches`() {
+        val saved = noteService.createNote(Note(title = "Logged", content = "Logged Content"))
+        val id = saved.id!!
+        val logger = LoggerFactory.getLogger(NoteService::class.java) as Logger
+        val listAppender = ListAppender<ILoggingEvent>().apply { start() }
+        logger.addAppender(listAppender)
+        try {
+            noteService.getNoteById(id)
+            noteService.updateNote(id, Note(title = "Logged", content = "Updated Content"))
+            noteService.deleteNote(id)
+        } finally {
+            logger.detachAppender(listAppender)
+        }
+
+        val finished = listAppender.list.filter { it.formattedMessage.startsWith("Finished") }
+        assertThat(finished.map { it.formattedMessage })
+            .containsExactly("Finished getting a note", "Finished updating a note", "Finished deleting a note")
+        assertThat(finished).allSatisfy { assertThat(it.mdcPropertyMap).containsEntry("id", id.toString()) }
+    }
+
     @Test
     fun `should throw exception when note not found`() {
         assertThatThrownBy { noteService.getNoteById(99999L) }
@@ -67,9 +103,11 @@ class NoteServiceIntegrationTest {
         assertThat(updated).isNotNull()
         assertThat(updated.title).isEqualTo("Updated")
         assertThat(updated.content).isEqualTo("Updated Content")
+        assertThat(updated.version).isEqualTo(saved.version!! + 1)
 
         val found = noteService.getNoteById(saved.id!!)
         assertThat(found.title).isEqualTo("Updated")
+        assertThat(found.version).isEqualTo(updated.version)
     }
 
     @Test